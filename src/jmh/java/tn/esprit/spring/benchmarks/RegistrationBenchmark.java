@@ -0,0 +1,59 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RegistrationBenchmark {
+
+    // Fait tourner cours et semaines, skieurs répartis par un pas premier : peu de doublons
+    @State(Scope.Thread)
+    public static class Cursor {
+        long next;
+        int skiers;
+
+        @Setup(Level.Trial)
+        public void setUp(ResortState state) {
+            skiers = state.skiers;
+        }
+
+        long numSkier() {
+            return 1 + (next * 7919) % skiers;
+        }
+
+        long numCourse() {
+            return 1 + next % ResortDataGenerator.COURSES;
+        }
+
+        int numWeek() {
+            return 1 + (int) ((next / ResortDataGenerator.COURSES) % ResortDataGenerator.WEEKS);
+        }
+    }
+
+    @Benchmark
+    public Registration addRegistrationAndAssignToSkierAndCourse(ResortState state, Cursor cursor) {
+        Registration registration = new Registration(null, cursor.numWeek(), null, null, null);
+        Registration result = state.bean(IRegistrationServices.class)
+                .addRegistrationAndAssignToSkierAndCourse(registration, cursor.numSkier(), cursor.numCourse());
+        cursor.next++;
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+package tn.esprit.spring.benchmarks;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test de charge HTTP : 400 clients concurrents sur GET /skier/get/{numSkier}, comparant
+ * server.execution-mode=platform (200 threads Tomcat) et virtual, à taille de pool HikariCP égale.
+ * Chaque requête SQL est retardée de dbLatencyMillis pour reproduire l'aller-retour vers MySQL.
+ * Débit : mode thrpt ; latences de queue (p99, p99.9) : mode sample.
+ * Le mode virtual exige un JDK 21+ pour exécuter les benchmarks, sinon il retombe sur platform.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dhttp.maxConnections=400"})
+public class RequestExecutionBenchmark {
+
+    private static final int SKIERS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"platform", "virtual"})
+        public String mode;
+
+        @Param({"10", "50"})
+        public int connections;
+
+        @Param({"5"})
+        public long dbLatencyMillis;
+
+        ConfigurableApplicationContext context;
+        String baseUrl;
+        final AtomicLong next = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void start() {
+            // Pas de retard pendant le démarrage et le chargement des données
+            DbLatency.millis = dbLatencyMillis;
+            DbLatency.enabled = false;
+            context = new SpringApplicationBuilder(GestionStationSkiApplication.class, DbLatency.class)
+                    .run("--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            "--spring.jpa.show-sql=false",
+                            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                            "--spring.datasource.hikari.maximum-pool-size=" + connections,
+                            "--server.execution-mode=" + mode,
+                            "--server.port=0",
+                            "--management.server.port=-1",
+                            "--subscription.expiry.cron=-",
+                            "--logging.level.root=WARN");
+            context.getBean(ResortDataGenerator.class).generate(SKIERS, ResortState.SEED);
+            DbLatency.enabled = true;
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "") + "/skier/get/";
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int getSkier(Server server) throws IOException {
+        long numSkier = 1 + (server.next.getAndIncrement() * 7919) % SKIERS;
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.baseUrl + numSkier).openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            while (body != null && body.read(buffer) >= 0) {
+                // Corps lu en entier pour que la connexion reste réutilisable (keep-alive)
+            }
+        }
+        return status;
+    }
+
+    // Retard ajouté avant chaque requête SQL, connexion tenue, comme sur le réseau
+    @Configuration
+    public static class DbLatency {
+
+        static volatile long millis;
+        static volatile boolean enabled;
+
+        @Bean
+        public static BeanPostProcessor latencyDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName + "-latency")
+                            .beforeQuery((execInfo, queryInfoList) -> pause())
+                            .build();
+                }
+            };
+        }
+
+        private static void pause() {
+            if (!enabled || millis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+
+import java.util.function.Supplier;
+
+/**
+ * Contexte Spring complet sur une base H2 en mémoire, créée et remplie une fois par essai
+ * pour chaque volume de skieurs.
+ */
+@State(Scope.Benchmark)
+public class ResortState {
+
+    public static final long SEED = 42L;
+
+    @Param({"1000", "100000", "1000000"})
+    public int skiers;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments de ligne de commande : prioritaires sur application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:bench" + skiers + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--subscription.expiry.cron=-",
+                        "--logging.level.root=WARN");
+        bean(ResortDataGenerator.class).generate(skiers, SEED);
+        readOnly = new TransactionTemplate(bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Tient une session ouverte pendant l'appel, comme open-in-view pour une requête HTTP
+    public <T> T inSession(Supplier<T> call) {
+        return readOnly.execute(status -> call.get());
+    }
+}
@@ -0,0 +1,44 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SkierAnalyticsBenchmark {
+
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2024, 1, 1);
+
+    @Benchmark
+    public List<SkierDTO> findTopSpendingSkiers(ResortState state) {
+        return state.bean(ISkierServices.class).findTopSpendingSkiers(10, 0, 10);
+    }
+
+    // Surcharge datée : mesure la requête, pas le cache d'analytique
+    @Benchmark
+    public Map<String, Double> analyzePisteUsageByAgeGroup(ResortState state) {
+        return state.bean(ISkierServices.class).analyzePisteUsageByAgeGroup(REFERENCE_DATE);
+    }
+
+    // Les registrations sont chargées à la demande : il faut la session de la requête
+    @Benchmark
+    public Map<String, Object> analyzeSkierEngagement(ResortState state) {
+        ISkierServices skierServices = state.bean(ISkierServices.class);
+        return state.inSession(skierServices::analyzeSkierEngagement);
+    }
+}
@@ -0,0 +1,76 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Mode d'exécution des requêtes, choisi par server.execution-mode :
+ * platform (défaut) garde le pool de threads de Tomcat, virtual traite chaque requête HTTP dans un
+ * thread virtuel. Seul l'exécuteur de Tomcat change : les StreamingResponseBody restent sur le pool
+ * de tâches de Spring Boot.
+ * En mode virtual, seul le pool HikariCP borne le nombre de requêtes en attente de la base.
+ * Le projet compile en Java 8 : les threads virtuels sont obtenus par réflexion et ne sont
+ * disponibles qu'à l'exécution sur un JDK 21 ou plus ; sinon le mode platform est conservé.
+ * Le pilote JDBC bloque dans des blocs synchronized qui épinglent le thread porteur : lancer la JVM avec
+ * au moins un porteur par connexion, -Djdk.virtualThreadScheduler.parallelism=&lt;maximum-pool-size&gt;
+ * (propriété lue une seule fois par le JDK, pour toute la JVM : elle n'est pas modifiée ici).
+ */
+@Slf4j
+@Configuration
+@Conditional(ExecutionModeConfig.OnVirtualThreads.class)
+public class ExecutionModeConfig {
+
+    private static final String SCHEDULER_PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+    private static final String VIRTUAL_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connections) {
+        int parallelism = Integer.getInteger(SCHEDULER_PARALLELISM, Runtime.getRuntime().availableProcessors());
+        if (parallelism < connections) {
+            log.warn("Only " + parallelism + " virtual-thread carriers for " + connections
+                    + " database connections : launch with -D" + SCHEDULER_PARALLELISM + "=" + connections);
+        }
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod(VIRTUAL_EXECUTOR_FACTORY).invoke(null);
+            log.info("Virtual-thread execution mode, " + connections + " database connections");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads unavailable", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    static class OnVirtualThreads extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String mode = context.getEnvironment().getProperty("server.execution-mode", "platform");
+            if (!"virtual".equals(mode)) {
+                return ConditionOutcome.noMatch("server.execution-mode is " + mode);
+            }
+            try {
+                Executors.class.getMethod(VIRTUAL_EXECUTOR_FACTORY);
+                return ConditionOutcome.match("server.execution-mode is virtual");
+            } catch (NoSuchMethodException e) {
+                log.warn("Virtual threads need JDK 21+, running " + System.getProperty("java.version")
+                        + " : falling back to platform threads");
+                return ConditionOutcome.noMatch("no virtual threads in JDK " + System.getProperty("java.version"));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connexions du réplica pour les transactions en lecture seule ouvertes par un service
+ * (@Transactional(readOnly = true) sur une méthode de tn.esprit.spring.services), celles de la base
+ * principale pour tout le reste : écritures, et lectures des repositories appelés hors transaction
+ * de service, qui précèdent souvent une écriture et doivent voir les dernières données.
+ * Réplica en retard ou injoignable : repli sur la base principale jusqu'au prochain contrôle réussi.
+ * Doit être enveloppé dans un LazyConnectionDataSourceProxy : la connexion n'est demandée qu'à la
+ * première requête, une fois la transaction et son attribut readOnly connus.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private static final String SERVICES = "tn.esprit.spring.services.";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private volatile boolean replicaAvailable;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!routesToReplica()) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            setReplicaAvailable(false, "connection failed: " + e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return routesToReplica() ? replica.getConnection(username, password) : primary.getConnection(username, password);
+    }
+
+    public boolean routesToReplica() {
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        return replicaAvailable && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && transaction != null && transaction.startsWith(SERVICES);
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    void setReplicaAvailable(boolean available, String reason) {
+        if (replicaAvailable != available) {
+            if (available) {
+                log.info("Read-only service transactions routed to the replica : " + reason);
+            } else {
+                log.warn("Replica unavailable, read-only service transactions routed to the primary : " + reason);
+            }
+        }
+        replicaAvailable = available;
+    }
+}
@@ -0,0 +1,81 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Retard du réplica mesuré par battement : l'heure courante est écrite sur la base principale
+ * à chaque contrôle, et la dernière valeur répliquée relue sur le réplica.
+ * Au-delà de max-lag-ms, ou si le réplica ne répond pas, le routage repasse sur la base principale.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements Closeable {
+
+    public static final String REPLICA_LAG = "datasource.replica.lag";
+    private static final long HEARTBEAT_ID = 1L;
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final JdbcTemplate primaryJdbc;
+    private final JdbcTemplate replicaJdbc;
+    private final long maxLagMillis;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(HikariDataSource primary, HikariDataSource replica, long maxLagMillis, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.routingDataSource = new ReadWriteRoutingDataSource(primary, replica);
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicaJdbc = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+        meterRegistry.gauge(REPLICA_LAG, this, ReplicaLagMonitor::getLagMillis);
+    }
+
+    public ReadWriteRoutingDataSource getRoutingDataSource() {
+        return routingDataSource;
+    }
+
+    // -1 tant qu'aucun battement n'a été relu sur le réplica
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.heartbeat-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            List<Long> beats = replicaJdbc.queryForList("select beat_at from replica_heartbeat where id = ?", Long.class, HEARTBEAT_ID);
+            if (beats.isEmpty()) {
+                lagMillis = -1;
+                routingDataSource.setReplicaAvailable(false, "no heartbeat replicated yet");
+            } else {
+                lagMillis = Math.max(0, now - beats.get(0));
+                routingDataSource.setReplicaAvailable(lagMillis <= maxLagMillis, "lag " + lagMillis + " ms");
+            }
+        } catch (DataAccessException e) {
+            lagMillis = -1;
+            routingDataSource.setReplicaAvailable(false, e.getMessage());
+        }
+        try {
+            if (primaryJdbc.update("update replica_heartbeat set beat_at = ? where id = ?", now, HEARTBEAT_ID) == 0) {
+                primaryJdbc.update("insert into replica_heartbeat (id, beat_at) values (?, ?)", HEARTBEAT_ID, now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Heartbeat not written on the primary : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,53 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Active dès que spring.datasource.replica.url est renseignée : deux pools HikariCP, base principale
+ * (spring.datasource.*) et réplica (spring.datasource.replica.*), derrière un seul DataSource routé.
+ * Les pools ne sont pas des beans : seul le DataSource routé est instrumenté (SqlStatementsConfig).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties properties, Environment environment,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${spring.datasource.replica.max-lag-ms:5000}") long maxLagMillis) throws Exception {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(properties, binder, "spring.datasource.hikari", "primary");
+
+        DataSourceProperties replicaProperties = binder.bind("spring.datasource.replica", DataSourceProperties.class)
+                .orElseThrow(() -> new IllegalStateException("spring.datasource.replica not configured"));
+        replicaProperties.afterPropertiesSet();
+        HikariDataSource replica = pool(replicaProperties, binder, "spring.datasource.replica.hikari", "replica");
+        replica.setReadOnly(true);
+
+        return new ReplicaLagMonitor(primary, replica, maxLagMillis, meterRegistry);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(replicaLagMonitor.getRoutingDataSource());
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String prefix, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind(prefix, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
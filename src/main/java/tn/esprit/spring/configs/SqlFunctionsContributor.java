@@ -0,0 +1,57 @@
+package tn.esprit.spring.configs;
+
+import org.hibernate.QueryException;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+
+import java.util.List;
+
+/**
+ * Fonctions JPQL propres au projet, déclarées via hibernate.metadata_builder_contributor.
+ * days_between(debut, fin) : nombre de jours entre deux dates, calculé par la base (DATEDIFF).
+ */
+public class SqlFunctionsContributor implements MetadataBuilderContributor {
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction("days_between", new DaysBetweenFunction());
+    }
+
+    // DATEDIFF n'a pas la même signature sous MySQL (fin, debut) et sous H2 ('DAY', debut, fin)
+    private static final class DaysBetweenFunction implements SQLFunction {
+
+        @Override
+        public boolean hasArguments() {
+            return true;
+        }
+
+        @Override
+        public boolean hasParenthesesIfNoArguments() {
+            return true;
+        }
+
+        @Override
+        public Type getReturnType(Type firstArgumentType, Mapping mapping) {
+            return StandardBasicTypes.INTEGER;
+        }
+
+        @Override
+        public String render(Type firstArgumentType, List arguments, SessionFactoryImplementor factory) {
+            if (arguments.size() != 2) {
+                throw new QueryException("days_between requires two arguments");
+            }
+            Dialect dialect = factory.getJdbcServices().getDialect();
+            if (dialect instanceof H2Dialect) {
+                return "datediff('DAY', " + arguments.get(0) + ", " + arguments.get(1) + ")";
+            }
+            return "datediff(" + arguments.get(1) + ", " + arguments.get(0) + ")";
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tn.esprit.spring.configs;
+
+/**
+ * Compte les requêtes SQL exécutées par le thread courant et leur durée cumulée,
+ * entre start() et stop() : une requête HTTP (SqlStatementsFilter) ou un bloc de test.
+ * Un batch JDBC compte pour une exécution.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    public static void start() {
+        CURRENT.set(new Counts());
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static long statements() {
+        Counts counts = CURRENT.get();
+        return counts == null ? 0 : counts.statements;
+    }
+
+    public static long elapsedMillis() {
+        Counts counts = CURRENT.get();
+        return counts == null ? 0 : counts.elapsedMillis;
+    }
+
+    static void record(long elapsedMillis) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+            counts.elapsedMillis += elapsedMillis;
+        }
+    }
+
+    private static final class Counts {
+        long statements;
+        long elapsedMillis;
+    }
+}
@@ -0,0 +1,49 @@
+package tn.esprit.spring.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * En-têtes X-SQL-Statements et X-SQL-Time-Ms : requêtes exécutées jusqu'à l'écriture de la réponse.
+ * Avec sql.statements.strict=true (tests, CI), un dépassement du budget fait échouer la requête.
+ */
+@ControllerAdvice
+public class SqlStatementsAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    private final int budget;
+    private final boolean strict;
+
+    public SqlStatementsAdvice(@Value("${sql.statements.budget:50}") int budget,
+                               @Value("${sql.statements.strict:false}") boolean strict) {
+        this.budget = budget;
+        this.strict = strict;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        long statements = SqlStatementCounter.statements();
+        if (strict && statements > budget) {
+            throw new IllegalStateException(request.getMethod() + " " + request.getURI().getPath() + " executed "
+                    + statements + " SQL statements, budget is " + budget);
+        }
+        response.getHeaders().set(STATEMENTS_HEADER, String.valueOf(statements));
+        response.getHeaders().set(TIME_HEADER, String.valueOf(SqlStatementCounter.elapsedMillis()));
+        return body;
+    }
+}
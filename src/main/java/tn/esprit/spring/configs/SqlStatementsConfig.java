@@ -0,0 +1,33 @@
+package tn.esprit.spring.configs;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Intercale datasource-proxy devant le pool de connexions : chaque exécution JDBC
+ * est comptée dans le SqlStatementCounter du thread courant.
+ */
+@Configuration
+public class SqlStatementsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create((DataSource) bean)
+                        .name(beanName)
+                        .afterQuery((execInfo, queryInfoList) -> SqlStatementCounter.record(execInfo.getElapsedTime()))
+                        .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Compteur SQL ouvert pour toute la durée de la requête HTTP, sérialisation de la réponse comprise :
+ * le bilan est journalisé (WARN au-delà de sql.statements.budget).
+ */
+@Slf4j
+@Component
+public class SqlStatementsFilter extends OncePerRequestFilter {
+
+    private final int budget;
+
+    public SqlStatementsFilter(@Value("${sql.statements.budget:50}") int budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long statements = SqlStatementCounter.statements();
+            String summary = request.getMethod() + " " + request.getRequestURI() + " sqlStatements=" + statements
+                    + " sqlTimeMs=" + SqlStatementCounter.elapsedMillis();
+            if (statements > budget) {
+                log.warn(summary + " exceeds the budget of " + budget + " statements");
+            } else {
+                log.debug(summary);
+            }
+            SqlStatementCounter.stop();
+        }
+    }
+}
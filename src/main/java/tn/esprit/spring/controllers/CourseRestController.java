@@ -3,12 +3,21 @@ package tn.esprit.spring.controllers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.services.CourseCapacityTracker;
 import tn.esprit.spring.services.ICourseServices;
+import tn.esprit.spring.services.ListingStreamer;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 @Tag(name = "\uD83D\uDCDA Course Management")
 @RestController
@@ -17,6 +26,7 @@ import java.util.List;
 public class CourseRestController {
     
     private final ICourseServices courseServices;
+    private final ListingStreamer listingStreamer;
 
     @Operation(description = "Add Course")
     @PostMapping("/add")
@@ -26,8 +36,25 @@ public class CourseRestController {
 
     @Operation(description = "Retrieve all Courses")
     @GetMapping("/all")
-    public List<Course> getAllCourses(){
-        return courseServices.retrieveAllCourses();
+    public ResponseEntity<StreamingResponseBody> getAllCourses() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> listingStreamer.writeJsonArray(courseServices::streamAllCourses, Function.identity(), out));
+    }
+
+    @Operation(description = "Stream all Courses as NDJSON")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCourses() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> listingStreamer.writeNdjson(courseServices::streamAllCourses, Function.identity(), out));
+    }
+
+    @Operation(description = "Retrieve a page of Courses after a cursor")
+    @GetMapping(value = "/all", params = "size")
+    public List<Course> getCoursesPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                       @RequestParam("size") int size) {
+        return courseServices.retrieveCoursesAfter(after, size);
     }
 
     @Operation(description = "Update Course ")
@@ -42,4 +69,18 @@ public class CourseRestController {
         return courseServices.retrieveCourse(numCourse);
     }
 
+    @Operation(description = "Search collective Courses with free seats by week, filtered by courses, type, support and level")
+    @GetMapping("/availability")
+    public List<CourseAvailabilityDTO> searchAvailability(
+            @RequestParam(value = "numCourses", required = false) List<Long> numCourses,
+            @RequestParam(value = "typeCourse", required = false) TypeCourse typeCourse,
+            @RequestParam(value = "support", required = false) Support support,
+            @RequestParam(value = "level", required = false) Integer level,
+            @RequestParam(value = "fromWeek", defaultValue = "1") int fromWeek,
+            @RequestParam(value = "toWeek", defaultValue = "" + CourseCapacityTracker.MAX_WEEK) int toWeek,
+            @RequestParam(value = "minSeats", defaultValue = "1") int minSeats) {
+        return courseServices.searchAvailability(numCourses != null ? numCourses : Collections.emptyList(),
+                typeCourse, support, level, fromWeek, toWeek, minSeats);
+    }
+
 }
@@ -3,11 +3,18 @@ package tn.esprit.spring.controllers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.InstructorWeekDTO;
 import tn.esprit.spring.entities.Instructor;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.services.IInstructorServices;
+import tn.esprit.spring.services.ListingStreamer;
 
 import java.util.List;
+import java.util.function.Function;
 
 @Tag(name = "\uD83D\uDC69\u200D\uD83C\uDFEB Instructor Management")
 @RestController
@@ -16,6 +23,7 @@ import java.util.List;
 public class InstructorRestController {
 
     private final IInstructorServices instructorServices;
+    private final ListingStreamer listingStreamer;
 
     @Operation(description = "Add Instructor")
     @PostMapping("/add")
@@ -29,8 +37,25 @@ public class InstructorRestController {
     }
     @Operation(description = "Retrieve all Instructors")
     @GetMapping("/all")
-    public List<Instructor> getAllInstructors(){
-        return instructorServices.retrieveAllInstructors();
+    public ResponseEntity<StreamingResponseBody> getAllInstructors() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> listingStreamer.writeJsonArray(instructorServices::streamAllInstructors, Function.identity(), out));
+    }
+
+    @Operation(description = "Stream all Instructors as NDJSON")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllInstructors() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> listingStreamer.writeNdjson(instructorServices::streamAllInstructors, Function.identity(), out));
+    }
+
+    @Operation(description = "Retrieve a page of Instructors after a cursor")
+    @GetMapping(value = "/all", params = "size")
+    public List<Instructor> getInstructorsPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                               @RequestParam("size") int size) {
+        return instructorServices.retrieveInstructorsAfter(after, size);
     }
 
     @Operation(description = "Update Instructor ")
@@ -45,4 +70,11 @@ public class InstructorRestController {
         return instructorServices.retrieveInstructor(numInstructor);
     }
 
+    @Operation(description = "Weeks when an instructor teaches in a given support, with courses and booked seats per week")
+    @GetMapping("/schedule/{numInstructor}/{support}")
+    public List<InstructorWeekDTO> getSchedule(@PathVariable("numInstructor") Long numInstructor,
+                                               @PathVariable("support") Support support) {
+        return instructorServices.retrieveInstructorSchedule(numInstructor, support);
+    }
+
 }
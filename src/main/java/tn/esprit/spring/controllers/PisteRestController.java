@@ -3,11 +3,16 @@ package tn.esprit.spring.controllers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.services.IPisteServices;
+import tn.esprit.spring.services.ListingStreamer;
 
 import java.util.List;
+import java.util.function.Function;
 
 @Tag(name = "\uD83C\uDFBF Piste Management")
 @RestController
@@ -16,6 +21,7 @@ import java.util.List;
 public class PisteRestController {
 
     private final IPisteServices pisteServices;
+    private final ListingStreamer listingStreamer;
 
     @Operation(description = "Add Piste")
     @PostMapping("/add")
@@ -24,8 +30,25 @@ public class PisteRestController {
     }
     @Operation(description = "Retrieve all Pistes")
     @GetMapping("/all")
-    public List<Piste> getAllPistes(){
-        return pisteServices.retrieveAllPistes();
+    public ResponseEntity<StreamingResponseBody> getAllPistes() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> listingStreamer.writeJsonArray(pisteServices::streamAllPistes, Function.identity(), out));
+    }
+
+    @Operation(description = "Stream all Pistes as NDJSON")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPistes() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> listingStreamer.writeNdjson(pisteServices::streamAllPistes, Function.identity(), out));
+    }
+
+    @Operation(description = "Retrieve a page of Pistes after a cursor")
+    @GetMapping(value = "/all", params = "size")
+    public List<Piste> getPistesPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                     @RequestParam("size") int size) {
+        return pisteServices.retrievePistesAfter(after, size);
     }
 
     @Operation(description = "Retrieve Piste by Id")
@@ -3,12 +3,18 @@ package tn.esprit.spring.controllers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.RegistrationRequestDTO;
+import tn.esprit.spring.dto.RegistrationResultDTO;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ConstraintViolations;
 import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.IdempotencyRegistry;
 
 import java.util.List;
 
@@ -34,13 +40,57 @@ public class RegistrationRestController {
     }
 
 
+    @Operation(description = "Delete Registration by Id")
+    @DeleteMapping("/delete/{numRegistration}")
+    public void removeRegistration(@PathVariable("numRegistration") Long numRegistration) {
+        registrationServices.removeRegistration(numRegistration);
+    }
+
     @Operation(description = "Add Registration and Assign to Skier and Course")
     @PutMapping("/addAndAssignToSkierAndCourse/{numSkieur}/{numCourse}")
     public Registration addAndAssignToSkierAndCourse(@RequestBody Registration registration,
                                                      @PathVariable("numSkieur") Long numSkieur,
-                                                     @PathVariable("numCourse") Long numCourse)
+                                                     @PathVariable("numCourse") Long numCourse,
+                                                     @RequestHeader(value = IdempotencyRegistry.HEADER, required = false) String idempotencyKey)
     {
-        return  registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse);
+        return registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, numSkieur, numCourse, idempotencyKey);
+    }
+
+    @Operation(description = "Add a group of Registrations, one result per request")
+    @PostMapping("/bulk")
+    public List<RegistrationResultDTO> addRegistrations(@RequestBody List<RegistrationRequestDTO> requests,
+                                                        @RequestHeader(value = IdempotencyRegistry.HEADER, required = false) String idempotencyKey) {
+        return registrationServices.addRegistrations(requests, idempotencyKey);
+    }
+
+    // Deux requêtes concurrentes pour le même skieur, cours et semaine : la contrainte unique départage.
+    // Les autres violations (place déjà prise, clé étrangère) ne sont pas des doublons et remontent telles quelles
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String registrationConflict(DataIntegrityViolationException e) {
+        if (ConstraintViolations.violates(e, Registration.SKIER_COURSE_WEEK_CONSTRAINT)) {
+            return "Registration already exists for this skier, course and week";
+        }
+        throw e;
+    }
+
+    @ExceptionHandler(IdempotencyRegistry.KeyReusedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String idempotencyKeyReused(IdempotencyRegistry.KeyReusedException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(IdempotencyRegistry.RequestInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String requestInProgress(IdempotencyRegistry.RequestInProgressException e) {
+        return e.getMessage();
+    }
+
+    // Inscription, cours ou semaine refusés par le service
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String invalidRegistration(IllegalArgumentException e) {
+        return e.getMessage();
     }
 
     @Operation(description = "Numbers of the weeks when an instructor has given lessons in a given support")
@@ -5,16 +5,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierEngagementDTO;
+import tn.esprit.spring.dto.SubscriptionAgeDTO;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.ISpendingLedgerServices;
+import tn.esprit.spring.services.ListingStreamer;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Tag(name = "\uD83C\uDFC2 Skier Management")
 @RestController
@@ -23,6 +34,8 @@ import java.util.stream.Collectors;
 public class SkierRestController {
 
     private final ISkierServices skierServices;
+    private final ISpendingLedgerServices spendingLedgerServices;
+    private final ListingStreamer listingStreamer;
 
     @Operation(description = "Add Skier")
     @PostMapping("/add")
@@ -108,16 +121,45 @@ public class SkierRestController {
         return skierServices.assignSkierToPiste(numSkier, numPiste);
     }
 
+    @Operation(description = "Record a Skier run on a Piste (lift scanners), written asynchronously in batches")
+    @PostMapping("/excursion/{numSkier}/{numPiste}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Excursion queued"),
+            @ApiResponse(responseCode = "503", description = "Excursion queue full, retry later")
+    })
+    public ResponseEntity<Void> recordExcursion(@PathVariable("numSkier") Long numSkier,
+                                                @PathVariable("numPiste") Long numPiste) {
+        if (!skierServices.recordExcursion(numSkier, numPiste)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
     @Operation(description = "Retrieve all Skiers")
     @GetMapping("/all")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved all skiers"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public List<SkierDTO> getAllSkiers() {
-        return skierServices.retrieveAllSkiers().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public ResponseEntity<StreamingResponseBody> getAllSkiers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> listingStreamer.writeJsonArray(skierServices::streamAllSkiers, Function.identity(), out));
+    }
+
+    @Operation(description = "Stream all Skiers as NDJSON")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllSkiers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> listingStreamer.writeNdjson(skierServices::streamAllSkiers, Function.identity(), out));
+    }
+
+    @Operation(description = "Retrieve a page of Skiers after a cursor")
+    @GetMapping(value = "/all", params = "size")
+    public List<SkierDTO> getSkiersPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                        @RequestParam("size") int size) {
+        return skierServices.retrieveSkiersAfter(after, size);
     }
 
     @Operation(description = "Retrieve Skier by Id")
@@ -128,7 +170,7 @@ public class SkierRestController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public SkierDTO getById(@PathVariable("numSkier") Long numSkier) {
-        return convertToDTO(skierServices.retrieveSkier(numSkier));
+        return skierServices.retrieveSkierDTO(numSkier);
     }
 
     @Operation(description = "Retrieve Skiers By Subscription Type")
@@ -138,9 +180,7 @@ public class SkierRestController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public List<SkierDTO> retrieveSkiersBySubscriptionType(@RequestParam("typeSubscription") TypeSubscription typeSubscription) {
-        return skierServices.retrieveSkiersBySubscriptionType(typeSubscription).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return skierServices.retrieveSkierDTOsBySubscriptionType(typeSubscription);
     }
 
     @Operation(description = "Delete Skier by Id")
@@ -154,26 +194,18 @@ public class SkierRestController {
         skierServices.removeSkier(numSkier);
     }
 
-    private SkierDTO convertToDTO(Skier skier) {
-        SkierDTO skierDTO = new SkierDTO();
-        skierDTO.setNumSkier(skier.getNumSkier());
-        skierDTO.setFirstName(skier.getFirstName());
-        skierDTO.setLastName(skier.getLastName());
-        skierDTO.setCity(skier.getCity());
-        if (skier.getSubscription() != null) {
-            skierDTO.setTypeSubscription(skier.getSubscription().getTypeSub());
-        }
-        return skierDTO;
-    }
-
     @Operation(description = "Analyze Piste Usage By Age Group")
     @GetMapping("/analyzePisteUsageByAgeGroup")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully analyzed piste usage by age group"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public Map<String, Double> analyzePisteUsageByAgeGroup() {
-        return skierServices.analyzePisteUsageByAgeGroup();
+    public Map<String, Double> analyzePisteUsageByAgeGroup(
+            @RequestParam(value = "referenceDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate referenceDate) {
+        return referenceDate == null
+                ? skierServices.analyzePisteUsageByAgeGroup()
+                : skierServices.analyzePisteUsageByAgeGroup(referenceDate);
     }
 
     @Operation(description = "Analyze Skier Engagement")
@@ -186,16 +218,26 @@ public class SkierRestController {
         return skierServices.analyzeSkierEngagement();
     }
 
+    @Operation(description = "Retrieve Most Active Skiers")
+    @GetMapping("/mostActiveSkiers")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved most active skiers"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public List<SkierEngagementDTO> retrieveMostActiveSkiers(@RequestParam(value = "k", defaultValue = "10") int k) {
+        return skierServices.retrieveMostActiveSkiers(k);
+    }
+
     @Operation(description = "Find Top Spending Skiers")
     @GetMapping("/findTopSpendingSkiers")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved top spending skiers"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public List<SkierDTO> findTopSpendingSkiers(@RequestParam("topN") int topN) {
-        return skierServices.findTopSpendingSkiers(topN).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<SkierDTO> findTopSpendingSkiers(@RequestParam("topN") int topN,
+                                                @RequestParam(value = "page", defaultValue = "0") int page,
+                                                @RequestParam(value = "size", defaultValue = "20") int size) {
+        return skierServices.findTopSpendingSkiers(topN, page, size);
     }
 
     @Operation(description = "Get Average Age By Subscription Type")
@@ -208,6 +250,20 @@ public class SkierRestController {
         return skierServices.getAverageAgeBySubscriptionType();
     }
 
+    @Operation(description = "Get Age Report By Subscription Type")
+    @GetMapping("/getAgeReportBySubscriptionType")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved age report by subscription type"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public Map<TypeSubscription, SubscriptionAgeDTO> getAgeReportBySubscriptionType(
+            @RequestParam(value = "referenceDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate referenceDate) {
+        return referenceDate == null
+                ? skierServices.getAgeReportBySubscriptionType()
+                : skierServices.getAgeReportBySubscriptionType(referenceDate);
+    }
+
     @Operation(description = "Calculate Total Spending By Skier")
     @GetMapping("/calculateTotalSpending/{numSkier}")
     @ApiResponses(value = {
@@ -218,4 +274,14 @@ public class SkierRestController {
     public Float calculateTotalSpendingBySkier(@PathVariable("numSkier") Long numSkier) {
         return skierServices.calculateTotalSpendingBySkier(numSkier);
     }
+
+    @Operation(description = "Reconcile Spending Ledger")
+    @PostMapping("/spendingLedger/reconcile")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Spending ledger checked against registrations and subscriptions"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public Map<String, Integer> reconcileSpendingLedger() {
+        return spendingLedgerServices.reconcile();
+    }
 }
@@ -3,13 +3,21 @@ package tn.esprit.spring.controllers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.SubscriptionRevenueDTO;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISubscriptionAnalyticsServices;
+import tn.esprit.spring.services.ISubscriptionExpiryServices;
 import tn.esprit.spring.services.ISubscriptionServices;
+import tn.esprit.spring.services.ListingStreamer;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 @Tag(name = "\uD83D\uDC65 Subscription Management")
 @RestController
@@ -18,6 +26,9 @@ import java.util.Set;
 public class SubscriptionRestController {
 
     private final ISubscriptionServices subscriptionServices;
+    private final ListingStreamer listingStreamer;
+    private final ISubscriptionAnalyticsServices subscriptionAnalyticsServices;
+    private final ISubscriptionExpiryServices subscriptionExpiryServices;
 
     @Operation(description = "Add Subscription ")
     @PostMapping("/add")
@@ -30,6 +41,29 @@ public class SubscriptionRestController {
         return subscriptionServices.retrieveSubscriptionById(numSubscription);
     }
     
+    @Operation(description = "Retrieve all Subscriptions")
+    @GetMapping("/all")
+    public ResponseEntity<StreamingResponseBody> getAllSubscriptions() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> listingStreamer.writeJsonArray(subscriptionServices::streamAllSubscriptions, Function.identity(), out));
+    }
+
+    @Operation(description = "Stream all Subscriptions as NDJSON")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllSubscriptions() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> listingStreamer.writeNdjson(subscriptionServices::streamAllSubscriptions, Function.identity(), out));
+    }
+
+    @Operation(description = "Retrieve a page of Subscriptions after a cursor")
+    @GetMapping(value = "/all", params = "size")
+    public List<Subscription> getSubscriptionsPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                                   @RequestParam("size") int size) {
+        return subscriptionServices.retrieveSubscriptionsAfter(after, size);
+    }
+
     @Operation(description = "Retrieve Subscriptions by Type")
     @GetMapping("/all/{typeSub}")
     public Set<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
@@ -60,12 +94,39 @@ public class SubscriptionRestController {
         return subscriptionServices.calculateTotalRevenue(startDate, endDate);
     }
 
+    @Operation(description = "Revenue and average duration between two dates")
+    @GetMapping("/revenue/{startDate}/{endDate}/summary")
+    public SubscriptionRevenueDTO getRevenueSummary(@PathVariable("startDate") LocalDate startDate,
+                                                    @PathVariable("endDate") LocalDate endDate) {
+        return subscriptionAnalyticsServices.getRevenue(startDate, endDate);
+    }
+
+    @Operation(description = "Revenue and average duration by subscription type between two dates")
+    @GetMapping("/revenue/{startDate}/{endDate}/byType")
+    public List<SubscriptionRevenueDTO> getRevenueByType(@PathVariable("startDate") LocalDate startDate,
+                                                         @PathVariable("endDate") LocalDate endDate) {
+        return subscriptionAnalyticsServices.getRevenueByType(startDate, endDate);
+    }
+
+    @Operation(description = "Revenue and average duration by month between two dates")
+    @GetMapping("/revenue/{startDate}/{endDate}/byMonth")
+    public List<SubscriptionRevenueDTO> getRevenueByMonth(@PathVariable("startDate") LocalDate startDate,
+                                                          @PathVariable("endDate") LocalDate endDate) {
+        return subscriptionAnalyticsServices.getRevenueByMonth(startDate, endDate);
+    }
+
     @Operation(description = "Find Subscriptions Expiring Soon")
     @GetMapping("/expiring-soon")
     public List<Subscription> findSubscriptionsExpiringSoon() {
         return subscriptionServices.findSubscriptionsExpiringSoon();
     }
 
+    @Operation(description = "Notify subscriptions expiring soon that were not notified yet")
+    @PostMapping("/expiring-soon/notify")
+    public Integer notifyExpiringSubscriptions() {
+        return subscriptionExpiryServices.notifyExpiringSubscriptions();
+    }
+
     @Operation(description = "Calculate Average Subscription Duration")
     @GetMapping("/average-duration")
     public Float calculateAverageSubscriptionDuration() {
@@ -0,0 +1,57 @@
+package tn.esprit.spring.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprit.spring.dto.WaitlistPromotionDTO;
+import tn.esprit.spring.services.IWaitlistServices;
+
+import java.util.List;
+
+@Tag(name = "\u23F3 Waitlist Management")
+@RestController
+@RequestMapping("/waitlist")
+@RequiredArgsConstructor
+public class WaitlistRestController {
+
+    private final IWaitlistServices waitlistServices;
+
+    @Operation(description = "Join the waitlist of a full collective course for a week, returns the position")
+    @PostMapping("/join/{numSkier}/{numCourse}/{numWeek}")
+    public int joinWaitlist(@PathVariable("numSkier") Long numSkier,
+                            @PathVariable("numCourse") Long numCourse,
+                            @PathVariable("numWeek") int numWeek) {
+        return waitlistServices.joinWaitlist(numSkier, numCourse, numWeek);
+    }
+
+    @Operation(description = "Leave the waitlist of a course for a week")
+    @DeleteMapping("/leave/{numSkier}/{numCourse}/{numWeek}")
+    public void leaveWaitlist(@PathVariable("numSkier") Long numSkier,
+                              @PathVariable("numCourse") Long numCourse,
+                              @PathVariable("numWeek") int numWeek) {
+        waitlistServices.leaveWaitlist(numSkier, numCourse, numWeek);
+    }
+
+    @Operation(description = "Position of a skier in the waitlist of a course for a week (0 : not waiting)")
+    @GetMapping("/position/{numSkier}/{numCourse}/{numWeek}")
+    public int waitlistPosition(@PathVariable("numSkier") Long numSkier,
+                                @PathVariable("numCourse") Long numCourse,
+                                @PathVariable("numWeek") int numWeek) {
+        return waitlistServices.waitlistPosition(numSkier, numCourse, numWeek);
+    }
+
+    @Operation(description = "Registrations obtained by a skier from waitlists, still valid")
+    @GetMapping("/promotions/{numSkier}")
+    public List<WaitlistPromotionDTO> retrievePromotions(@PathVariable("numSkier") Long numSkier) {
+        return waitlistServices.retrievePromotions(numSkier);
+    }
+
+    @Operation(description = "Server-Sent Events of a skier : one \"promoted\" event per registration obtained from a waitlist, earlier ones replayed on subscription")
+    @GetMapping(value = "/subscribe/{numSkier}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable("numSkier") Long numSkier) {
+        return waitlistServices.subscribe(numSkier);
+    }
+}
@@ -0,0 +1,39 @@
+package tn.esprit.spring.datagen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chargement en ligne de commande, puis arrêt de l'application :
+ * mvn spring-boot:run -Dspring-boot.run.profiles=datagen -Dspring-boot.run.arguments="--datagen.skiers=1000000 --datagen.seed=7"
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+public class DataGenRunner implements CommandLineRunner {
+
+    private final ResortDataGenerator generator;
+    private final ConfigurableApplicationContext context;
+    private final int skiers;
+    private final long seed;
+
+    public DataGenRunner(ResortDataGenerator generator, ConfigurableApplicationContext context,
+                         @Value("${datagen.skiers:100000}") int skiers,
+                         @Value("${datagen.seed:42}") long seed) {
+        this.generator = generator;
+        this.context = context;
+        this.skiers = skiers;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(String... args) {
+        log.info("Rows inserted : " + generator.generate(skiers, seed));
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,253 @@
+package tn.esprit.spring.datagen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.services.AnalyticsCache;
+import tn.esprit.spring.services.CourseAvailabilityIndex;
+import tn.esprit.spring.services.CourseCapacityTracker;
+import tn.esprit.spring.services.InstructorScheduleCache;
+import tn.esprit.spring.services.SkierEngagementTracker;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Générateur de données synthétiques pour les tests de charge et les benchmarks :
+ * pistes, cours, moniteurs, puis pour chaque skieur son abonnement, ses inscriptions réparties
+ * sur les semaines de la saison, ses descentes (excursion) et sa ligne du grand livre des dépenses.
+ * Insertion en batch JDBC, identifiants explicites à la suite des données existantes :
+ * même graine et même volume donnent le même jeu de données.
+ */
+@Slf4j
+@Component
+public class ResortDataGenerator {
+
+    public static final int PISTES = 50;
+    public static final int COURSES = 200;
+    public static final int INSTRUCTORS = 20;
+    public static final int WEEKS = 52;
+    public static final LocalDate SEASON_START = LocalDate.of(2023, 1, 1);
+
+    private static final int MAX_REGISTRATIONS_PER_SKIER = 4;
+    private static final int MAX_PISTES_PER_SKIER = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CourseCapacityTracker courseCapacityTracker;
+    private final AnalyticsCache analyticsCache;
+    private final SkierEngagementTracker engagementTracker;
+    private final CourseAvailabilityIndex availabilityIndex;
+    private final InstructorScheduleCache scheduleCache;
+    private final int batchSize;
+
+    public ResortDataGenerator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                               CourseCapacityTracker courseCapacityTracker, AnalyticsCache analyticsCache,
+                               SkierEngagementTracker engagementTracker, CourseAvailabilityIndex availabilityIndex,
+                               InstructorScheduleCache scheduleCache,
+                               @Value("${datagen.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.courseCapacityTracker = courseCapacityTracker;
+        this.analyticsCache = analyticsCache;
+        this.engagementTracker = engagementTracker;
+        this.availabilityIndex = availabilityIndex;
+        this.scheduleCache = scheduleCache;
+        this.batchSize = batchSize;
+    }
+
+    // Un tiers des cours est individuel (numéro multiple de 3 dans le jeu généré)
+    public static boolean isIndividual(long courseIndex) {
+        return courseIndex % 3 == 0;
+    }
+
+    /**
+     * @return le nombre de lignes insérées par table
+     */
+    public Map<String, Long> generate(int skiers, long seed) {
+        if (skiers < 0) {
+            throw new IllegalArgumentException("skiers must not be negative");
+        }
+        long start = System.currentTimeMillis();
+        Batch batch = new Batch(new Random(seed));
+        batch.insertPistes();
+        batch.insertCourses();
+        batch.insertInstructors();
+        batch.insertSkiers(skiers);
+        batch.restartGenerators();
+
+        // Les lignes ont été écrites sans passer par JPA : caches et suivi des places à reconstruire
+        entityManagerFactory.getCache().evictAll();
+        analyticsCache.invalidate(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP, AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
+        courseCapacityTracker.reload();
+        engagementTracker.reload();
+        availabilityIndex.reload();
+        scheduleCache.clear();
+
+        log.info("Generated " + batch.rows + " in " + (System.currentTimeMillis() - start) + " ms (seed " + seed + ")");
+        return batch.rows;
+    }
+
+    private long maxId(String table, String column) {
+        Long max = jdbcTemplate.queryForObject("select max(" + column + ") from " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private boolean isMySql() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase().contains("mysql");
+    }
+
+    private final class Batch {
+
+        final Random random;
+        final Map<String, Long> rows = new LinkedHashMap<>();
+        final long firstPiste = maxId("piste", "num_piste");
+        final long firstCourse = maxId("course", "num_course");
+        final long firstInstructor = maxId("instructor", "num_instructor");
+        final long firstSkier = maxId("skier", "num_skier");
+        final long firstSubscription = maxId("subscription", "num_sub");
+        final long firstRegistration = maxId("registration", "num_registration");
+        final float[] coursePrices = new float[COURSES + 1];
+        long registrations;
+
+        Batch(Random random) {
+            this.random = random;
+        }
+
+        void insertPistes() {
+            String[] colors = {"GREEN", "BLUE", "RED", "BLACK"};
+            List<Object[]> pistes = new ArrayList<>();
+            for (int i = 1; i <= PISTES; i++) {
+                pistes.add(new Object[]{firstPiste + i, colors[i % colors.length], 500 + random.nextInt(3000),
+                        "Piste " + (firstPiste + i), 5 + random.nextInt(40)});
+            }
+            insert("piste", "num_piste, color, length, name_piste, slope", pistes);
+        }
+
+        void insertCourses() {
+            List<Object[]> courses = new ArrayList<>();
+            for (int i = 1; i <= COURSES; i++) {
+                String typeCourse = isIndividual(i) ? "INDIVIDUAL" : (i % 3 == 1 ? "COLLECTIVE_CHILDREN" : "COLLECTIVE_ADULT");
+                coursePrices[i] = 50 + random.nextInt(20) * 10f;
+                courses.add(new Object[]{firstCourse + i, 1 + random.nextInt(5), coursePrices[i],
+                        i % 2 == 0 ? "SKI" : "SNOWBOARD", 1 + random.nextInt(3), typeCourse});
+            }
+            insert("course", "num_course, level, price, support, time_slot, type_course", courses);
+        }
+
+        void insertInstructors() {
+            List<Object[]> instructors = new ArrayList<>();
+            List<Object[]> links = new ArrayList<>();
+            for (int i = 1; i <= INSTRUCTORS; i++) {
+                instructors.add(new Object[]{firstInstructor + i, "Instructor" + i, "Name" + i,
+                        Date.valueOf(SEASON_START.minusDays(random.nextInt(3650)))});
+                for (int c = i; c <= COURSES; c += INSTRUCTORS) {
+                    links.add(new Object[]{firstInstructor + i, firstCourse + c});
+                }
+            }
+            insert("instructor", "num_instructor, first_name, last_name, date_of_hire", instructors);
+            insert("instructor_courses", "instructor_num_instructor, courses_num_course", links);
+        }
+
+        void insertSkiers(int skiers) {
+            int[][] seats = new int[COURSES + 1][WEEKS + 1];
+            List<Object[]> subscriptions = new ArrayList<>(batchSize);
+            List<Object[]> skierRows = new ArrayList<>(batchSize);
+            List<Object[]> ledgers = new ArrayList<>(batchSize);
+            List<Object[]> registrationRows = new ArrayList<>(batchSize * 2);
+            List<Object[]> excursions = new ArrayList<>(batchSize * 3);
+
+            for (int i = 1; i <= skiers; i++) {
+                long numSkier = firstSkier + i;
+                long numSub = firstSubscription + i;
+                int type = random.nextInt(3); // ordinal de TypeSubscription : ANNUAL, MONTHLY, SEMESTRIEL
+                LocalDate startDate = SEASON_START.plusDays(random.nextInt(730));
+                LocalDate endDate = type == 0 ? startDate.plusYears(1) : (type == 1 ? startDate.plusMonths(1) : startDate.plusMonths(6));
+                float subscriptionPrice = type == 0 ? 900 + random.nextInt(100) : (type == 1 ? 100 + random.nextInt(20) : 500 + random.nextInt(50));
+                subscriptions.add(new Object[]{numSub, Date.valueOf(startDate), Date.valueOf(endDate), subscriptionPrice, type});
+                skierRows.add(new Object[]{numSkier, "City" + random.nextInt(100),
+                        Date.valueOf(LocalDate.of(1950 + random.nextInt(68), 1 + random.nextInt(12), 1 + random.nextInt(28))),
+                        "First" + numSkier, "Last" + numSkier, numSub});
+
+                float courseSpending = 0;
+                int count = random.nextInt(MAX_REGISTRATIONS_PER_SKIER + 1);
+                Set<Integer> courseWeeks = new HashSet<>();
+                for (int r = 0; r < count; r++) {
+                    int numWeek = 1 + random.nextInt(WEEKS);
+                    int course = 1 + random.nextInt(COURSES);
+                    if (!isIndividual(course) && seats[course][numWeek] >= CourseCapacityTracker.MAX_PARTICIPANTS) {
+                        course = Math.max(3, course - course % 3); // cours complet : repli sur un cours individuel
+                    }
+                    // Une seule inscription par cours et par semaine (uk_registration_skier_course_week)
+                    if (!courseWeeks.add(course * (WEEKS + 1) + numWeek)) {
+                        continue;
+                    }
+                    Integer seat = isIndividual(course) ? null : ++seats[course][numWeek];
+                    courseSpending += coursePrices[course];
+                    registrationRows.add(new Object[]{firstRegistration + ++registrations, numWeek, seat, firstCourse + course, numSkier});
+                }
+                int firstVisited = random.nextInt(PISTES);
+                int visited = random.nextInt(MAX_PISTES_PER_SKIER + 1);
+                for (int p = 0; p < visited; p++) {
+                    excursions.add(new Object[]{numSkier, firstPiste + 1 + (firstVisited + p) % PISTES});
+                }
+                ledgers.add(new Object[]{numSkier, courseSpending, subscriptionPrice, courseSpending + subscriptionPrice});
+
+                if (skierRows.size() == batchSize || i == skiers) {
+                    // Abonnements avant skieurs, skieurs et cours avant inscriptions (clés étrangères)
+                    insert("subscription", "num_sub, start_date, end_date, price, type_sub", subscriptions);
+                    insert("skier", "num_skier, city, date_of_birth, first_name, last_name, subscription_num_sub", skierRows);
+                    insert("registration", "num_registration, num_week, seat, course_num_course, skier_num_skier", registrationRows);
+                    insert("excursion", "num_skier, num_piste", excursions);
+                    insert("spending_ledger", "num_skier, course_spending, subscription_spending, total_spending", ledgers);
+                    if (i % (batchSize * 20) == 0) {
+                        log.info("Generated " + i + "/" + skiers + " skiers");
+                    }
+                }
+            }
+        }
+
+        // Les prochains identifiants attribués par la base ou par Hibernate suivent le jeu généré
+        void restartGenerators() {
+            // Séquence allouée par blocs de 50 : marge d'un bloc pour l'optimiseur pooled
+            long nextRegistration = firstRegistration + registrations + 100;
+            if (isMySql()) {
+                // MySQL avance seul ses auto_increment ; la séquence est émulée par une table
+                jdbcTemplate.update("update registration_seq set next_val = ?", nextRegistration);
+                return;
+            }
+            restartIdentity("piste", "num_piste");
+            restartIdentity("course", "num_course");
+            restartIdentity("instructor", "num_instructor");
+            restartIdentity("subscription", "num_sub");
+            restartIdentity("skier", "num_skier");
+            jdbcTemplate.execute("alter sequence registration_seq restart with " + nextRegistration);
+        }
+
+        private void restartIdentity(String table, String column) {
+            jdbcTemplate.execute("alter table " + table + " alter column " + column + " restart with " + (maxId(table, column) + 1));
+        }
+
+        private void insert(String table, String columns, List<Object[]> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(batch.get(0).length, "?"));
+            jdbcTemplate.batchUpdate("insert into " + table + " (" + columns + ") values (" + placeholders + ")", batch);
+            rows.merge(table, (long) batch.size(), Long::sum);
+            batch.clear();
+        }
+    }
+}
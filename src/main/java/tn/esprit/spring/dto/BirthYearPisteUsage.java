@@ -0,0 +1,8 @@
+package tn.esprit.spring.dto;
+
+// Projection : skieurs et passages sur les pistes, agrégés par année de naissance
+public interface BirthYearPisteUsage {
+    Integer getBirthYear();
+    Long getSkiers();
+    Long getExcursions();
+}
@@ -0,0 +1,26 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+import java.util.Map;
+
+// Cours collectif et places libres par semaine (seulement les semaines recherchées qui ont de la place)
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseAvailabilityDTO {
+    private Long numCourse;
+    private TypeCourse typeCourse;
+    private Support support;
+    private int level;
+    private Float price;
+    private Map<Integer, Integer> freeSeatsByWeek;
+}
@@ -0,0 +1,8 @@
+package tn.esprit.spring.dto;
+
+// Projection : nombre d'inscriptions d'une semaine d'un cours (semaine nulle : cours sans inscription)
+public interface CourseWeekCount {
+    Long getNumCourse();
+    Integer getNumWeek();
+    Long getRegistrations();
+}
@@ -0,0 +1,8 @@
+package tn.esprit.spring.dto;
+
+// Projection : place occupée par une inscription dans une semaine d'un cours collectif
+public interface CourseWeekSeat {
+    Long getNumCourse();
+    Integer getNumWeek();
+    Integer getSeat();
+}
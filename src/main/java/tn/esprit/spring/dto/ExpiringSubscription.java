@@ -0,0 +1,16 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+// Projection : abonnement arrivant à échéance et son titulaire
+public interface ExpiringSubscription {
+    Long getNumSub();
+    LocalDate getEndDate();
+    TypeSubscription getTypeSubscription();
+    Float getPrice();
+    Long getNumSkier();
+    String getFirstName();
+    String getLastName();
+}
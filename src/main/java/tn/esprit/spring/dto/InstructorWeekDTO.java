@@ -0,0 +1,19 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// Semaine du planning d'un moniteur : cours ayant des inscrits et places occupées
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class InstructorWeekDTO {
+    private int numWeek;
+    private int courses;
+    private long registrations;
+}
@@ -0,0 +1,14 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationRequestDTO {
+    private Long numSkier;
+    private Long numCourse;
+    private int numWeek;
+}
@@ -0,0 +1,17 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.esprit.spring.entities.RegistrationStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationResultDTO {
+    private Long numSkier;
+    private Long numCourse;
+    private int numWeek;
+    private RegistrationStatus status;
+    private Long numRegistration;
+}
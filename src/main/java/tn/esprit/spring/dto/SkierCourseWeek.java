@@ -0,0 +1,8 @@
+package tn.esprit.spring.dto;
+
+// Projection : inscription existante d'un skieur à une semaine d'un cours
+public interface SkierCourseWeek {
+    Long getNumSkier();
+    Long getNumCourse();
+    Integer getNumWeek();
+}
@@ -2,9 +2,11 @@ package tn.esprit.spring.dto;
 
 import java.time.LocalDate;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import tn.esprit.spring.entities.TypeSubscription;
 
 @Data
+@NoArgsConstructor
 @SuppressWarnings("squid:S1068") // S1068 est souvent l'erreur pour champs inutilisés
 public class SkierDTO {
     private Long numSkier;
@@ -16,5 +18,17 @@ public class SkierDTO {
     private LocalDate startDate;
     private Float price;
     private Float totalSpending;
+
+    // Projection JPQL (select new) : lecture sans entité managée
+    public SkierDTO(Long numSkier, String firstName, String lastName, String city,
+                    TypeSubscription typeSubscription, LocalDate startDate, Float price) {
+        this.numSkier = numSkier;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.city = city;
+        this.typeSubscription = typeSubscription;
+        this.startDate = startDate;
+        this.price = price;
+    }
 }
 
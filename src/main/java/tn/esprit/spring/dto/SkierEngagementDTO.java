@@ -0,0 +1,20 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// Skieur du classement d'engagement et son nombre d'inscriptions
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class SkierEngagementDTO {
+    private Long numSkier;
+    private String firstName;
+    private String lastName;
+    private long registrations;
+}
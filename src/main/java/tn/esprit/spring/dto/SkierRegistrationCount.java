@@ -0,0 +1,7 @@
+package tn.esprit.spring.dto;
+
+// Projection : nombre d'inscriptions d'un skieur
+public interface SkierRegistrationCount {
+    Long getNumSkier();
+    Long getRegistrations();
+}
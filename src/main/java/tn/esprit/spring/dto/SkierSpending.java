@@ -0,0 +1,21 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Projection : une ligne par skieur, dépenses en cours agrégées par la base
+public interface SkierSpending {
+    Long getNumSkier();
+    String getFirstName();
+    String getLastName();
+    LocalDate getDateOfBirth();
+    String getCity();
+    TypeSubscription getTypeSubscription();
+    LocalDate getStartDate();
+    Float getSubscriptionPrice();
+    Double getCourseSpending();
+    // Total du grand livre, celui du tri : renseigné par le classement (ISpendingLedgerRepository.findRanking) seulement
+    BigDecimal getTotalSpending();
+}
@@ -0,0 +1,16 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+// Projection : une ligne par type d'abonnement, âges agrégés par la base
+public interface SubscriptionAgeAggregate {
+    TypeSubscription getTypeSubscription();
+    Long getSkiers();
+    LocalDate getOldestBirthDate();
+    LocalDate getYoungestBirthDate();
+    Double getAverageBirthYear();
+    // Skieurs dont l'anniversaire n'est pas encore passé à la date de référence
+    Long getBirthdaysPending();
+}
@@ -0,0 +1,20 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.esprit.spring.entities.TypeSubscription;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionAgeDTO {
+    private TypeSubscription typeSubscription;
+    private long skiers;
+    // Différence d'années civiles, comme l'ancien calcul
+    private double averageAge;
+    // Âge exact (anniversaire compris), comme Period.between
+    private double averagePreciseAge;
+    private int minAge;
+    private int maxAge;
+}
@@ -0,0 +1,43 @@
+package tn.esprit.spring.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+
+/**
+ * Chiffre d'affaires et durée moyenne d'un groupe d'abonnements, agrégés par la base
+ * (select new) : le prix est sommé en DECIMAL, jamais accumulé en Float.
+ */
+@Data
+@NoArgsConstructor
+public class SubscriptionRevenueDTO {
+
+    public static final String ALL = "ALL";
+
+    private String group;
+    private long subscriptions;
+    private BigDecimal revenue;
+    private BigDecimal averageDurationDays;
+
+    public SubscriptionRevenueDTO(Long subscriptions, BigDecimal revenue, Long durationDays) {
+        this.group = ALL;
+        this.subscriptions = subscriptions == null ? 0 : subscriptions;
+        this.revenue = revenue == null ? BigDecimal.ZERO : revenue;
+        this.averageDurationDays = this.subscriptions == 0 || durationDays == null ? BigDecimal.ZERO
+                : BigDecimal.valueOf(durationDays).divide(BigDecimal.valueOf(this.subscriptions), 2, RoundingMode.HALF_UP);
+    }
+
+    public SubscriptionRevenueDTO(TypeSubscription typeSubscription, Long subscriptions, BigDecimal revenue, Long durationDays) {
+        this(subscriptions, revenue, durationDays);
+        this.group = typeSubscription.name();
+    }
+
+    public SubscriptionRevenueDTO(Integer year, Integer month, Long subscriptions, BigDecimal revenue, Long durationDays) {
+        this(subscriptions, revenue, durationDays);
+        this.group = YearMonth.of(year, month).toString();
+    }
+}
@@ -0,0 +1,21 @@
+package tn.esprit.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// Événement SSE "promoted" : inscription créée pour le skieur en tête de file quand une place s'est libérée.
+// Gardée en base sur l'entrée de file (WaitlistEntry.registration), relue par GET /waitlist/promotions
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistPromotionDTO {
+    private Long numRegistration;
+    private Long numCourse;
+    private int numWeek;
+    private Integer seat;
+}
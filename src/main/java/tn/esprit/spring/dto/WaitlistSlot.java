@@ -0,0 +1,9 @@
+package tn.esprit.spring.dto;
+
+// Projection : place dans la file d'attente d'un cours pour une semaine
+public interface WaitlistSlot {
+    Long getNumEntry();
+    Long getNumSkier();
+    Long getNumCourse();
+    Integer getNumWeek();
+}
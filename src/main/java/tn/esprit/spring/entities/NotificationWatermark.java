@@ -0,0 +1,33 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+// Dernière position (endDate, numSub) traitée par un job de notification : la reprise repart de là
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+public class NotificationWatermark implements Serializable {
+
+	@Id
+	String job;
+	LocalDate lastEndDate;
+	Long lastNumSub;
+	LocalDateTime updatedAt;
+}
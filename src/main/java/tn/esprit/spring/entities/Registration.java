@@ -7,6 +7,11 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.Check;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
@@ -23,12 +28,24 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@Table(uniqueConstraints = {
+		@UniqueConstraint(name = Registration.COURSE_WEEK_SEAT_CONSTRAINT, columnNames = {"course_num_course", "numWeek", "seat"}),
+		// Une inscription par skieur, cours et semaine (migration V3) ; sert aussi d'index des inscriptions d'un skieur
+		@UniqueConstraint(name = Registration.SKIER_COURSE_WEEK_CONSTRAINT, columnNames = {"skier_num_skier", "course_num_course", "numWeek"})})
+@Check(constraints = "seat is null or seat between 1 and 6")
 public class Registration implements Serializable {
 
+	public static final String COURSE_WEEK_SEAT_CONSTRAINT = "uk_registration_course_week_seat";
+	public static final String SKIER_COURSE_WEEK_CONSTRAINT = "uk_registration_skier_course_week";
+
+	// Séquence (table émulée sous MySQL) allouée par blocs : IDENTITY empêchait le batch JDBC
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="registration_seq")
+	@SequenceGenerator(name="registration_seq", sequenceName="registration_seq", allocationSize=50)
 	Long numRegistration;
 	int numWeek;
+	// Place occupée dans un cours collectif (1..6), null pour les cours individuels
+	Integer seat;
 
 	@JsonIgnore
 	@ManyToOne
@@ -0,0 +1,5 @@
+package tn.esprit.spring.entities;
+
+public enum RegistrationStatus {
+    ACCEPTED, FULL, AGE_REJECTED, DUPLICATE, NOT_FOUND, INVALID_WEEK
+}
@@ -7,6 +7,7 @@ import java.util.Set;
 import javax.persistence.*;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,8 +21,19 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+// Plans de chargement choisis par cas d'usage dans ISkierRepository (@EntityGraph)
+@NamedEntityGraph(name = Skier.WITH_REGISTRATIONS, attributeNodes = {
+		@NamedAttributeNode("subscription"),
+		@NamedAttributeNode(value = "registrations", subgraph = "registration.course")},
+		subgraphs = @NamedSubgraph(name = "registration.course", attributeNodes = @NamedAttributeNode("course")))
+@NamedEntityGraph(name = Skier.WITH_PISTES, attributeNodes = {
+		@NamedAttributeNode("subscription"),
+		@NamedAttributeNode("pistes")})
 public class Skier implements Serializable {
 
+	public static final String WITH_REGISTRATIONS = "Skier.withRegistrations";
+	public static final String WITH_PISTES = "Skier.withPistes";
+
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	Long numSkier;
@@ -35,6 +47,7 @@ public class Skier implements Serializable {
 
 	@JsonIgnore
 	@ManyToMany
+	@BatchSize(size = 50)
 	@JoinTable(
 			name = "excursion",
 			joinColumns = @JoinColumn(name = "numSkier"),
@@ -42,5 +55,6 @@ public class Skier implements Serializable {
 	private Set<Piste> pistes;
 
 	@OneToMany(mappedBy = "skier")
+	@BatchSize(size = 50)
 	private Set<Registration> registrations;
 }
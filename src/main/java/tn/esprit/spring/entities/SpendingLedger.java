@@ -0,0 +1,40 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+// Dépenses cumulées d'un skieur, maintenues à chaque écriture (inscription, abonnement, prix d'un cours).
+// Montants décimaux (migration V6) : les incréments successifs ne dérivent pas comme en float
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+@Table(indexes = @Index(name = "idx_spending_ledger_total", columnList = "totalSpending"))
+public class SpendingLedger implements Serializable {
+
+	@Id
+	Long numSkier;
+	@Column(precision = 12, scale = 2)
+	BigDecimal courseSpending;
+	@Column(precision = 12, scale = 2)
+	BigDecimal subscriptionSpending;
+	@Column(precision = 12, scale = 2)
+	BigDecimal totalSpending;
+}
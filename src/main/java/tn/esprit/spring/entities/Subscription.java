@@ -5,6 +5,8 @@ import java.time.LocalDate;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.BatchSize;
+
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,6 +21,15 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+// Couvrant pour les agrégats par période : la plage sur startDate suffit, sans lire la table
+@Table(indexes = {
+		@Index(name = "idx_subscription_start_type_price", columnList = "startDate, typeSub, price, endDate"),
+		// Parcours par curseur (endDate, numSub) des abonnements arrivant à échéance
+		@Index(name = "idx_subscription_end_date", columnList = "endDate, numSub"),
+		// Abonnements d'un type triés par date de début (migration V2)
+		@Index(name = "idx_subscription_type_start", columnList = "typeSub, startDate, price")})
+// Abonnement chargé avec chaque skieur (OneToOne) : par lots plutôt qu'un select par skieur
+@BatchSize(size = 50)
 public class
 Subscription implements Serializable {
 
@@ -0,0 +1,54 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+// File d'attente d'un cours collectif complet pour une semaine : l'ordre d'arrivée est celui de numEntry ;
+// une fois le skieur inscrit, l'entrée garde l'inscription obtenue
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_entry_skier_course_week",
+		columnNames = {"skier_num_skier", "course_num_course", "numWeek"}))
+public class WaitlistEntry implements Serializable {
+
+	@Id
+	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	Long numEntry;
+	int numWeek;
+
+	// Supprimée avec le skieur (on delete cascade, migration V4)
+	@JsonIgnore
+	@ManyToOne(optional = false)
+	@JoinColumn(nullable = false)
+	Skier skier;
+	@JsonIgnore
+	@ManyToOne(optional = false)
+	@JoinColumn(nullable = false)
+	Course course;
+	// Null tant que le skieur attend ; supprimée avec l'inscription (on delete cascade, migration V8)
+	@JsonIgnore
+	@ManyToOne
+	Registration registration;
+}
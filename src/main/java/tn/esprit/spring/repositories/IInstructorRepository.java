@@ -1,11 +1,37 @@
 package tn.esprit.spring.repositories;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.entities.Instructor;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 
 
 public interface IInstructorRepository extends JpaRepository<Instructor, Long> {
 
+    // Entités de référence : listes servies par le cache de requêtes, invalidé à chaque écriture sur la table
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Instructor> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Instructor> findByNumInstructorGreaterThanOrderByNumInstructorAsc(Long after, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select i from Instructor i order by i.numInstructor")
+    Stream<Instructor> streamAll();
+
+    @Query("select i.numInstructor from Instructor i join i.courses c where c.numCourse = :numCourse")
+    List<Long> findNumInstructorsByCourse(@Param("numCourse") Long numCourse);
 }
@@ -0,0 +1,7 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import tn.esprit.spring.entities.NotificationWatermark;
+
+public interface INotificationWatermarkRepository extends JpaRepository<NotificationWatermark, String> {
+}
@@ -4,23 +4,55 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.CourseWeekSeat;
+import tn.esprit.spring.dto.SkierCourseWeek;
+import tn.esprit.spring.dto.SkierRegistrationCount;
 import tn.esprit.spring.entities.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface IRegistrationRepository extends CrudRepository<Registration, Long> {
 
     long countByCourseAndNumWeek(Course course, int numWeek);
-    @Query("select reg.numWeek from Registration reg " +
-            "join Instructor ins " +
-            "on reg.course member ins.courses " +
-            "where ins.numInstructor = :idIns and reg.course.support = :support")
-    List<Integer> numWeeksCourseOfInstructorBySupport(@Param("idIns") Long numInstructor, @Param("support") Support support);
+
+    // Planning d'un moniteur : instructor_courses -> course -> registration par l'index (cours, semaine, place),
+    // une ligne par cours et semaine ; les cours sans inscription donnent une ligne de semaine nulle
+    @Query("select c.numCourse as numCourse, r.numWeek as numWeek, count(r) as registrations " +
+            "from Instructor ins join ins.courses c left join c.registrations r " +
+            "where ins.numInstructor = :idIns and c.support = :support group by c.numCourse, r.numWeek")
+    List<CourseWeekCount> countRegistrationsPerWeekOfInstructorBySupport(@Param("idIns") Long numInstructor,
+                                                                         @Param("support") Support support);
 
     @Query("select count(distinct r) from Registration r " +
             "where r.numWeek = ?1 and r.skier.numSkier = ?2 and r.course.numCourse = ?3")
     long countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
 
+    @Query("select r.skier.numSkier as numSkier, count(r) as registrations from Registration r " +
+            "where r.course.numCourse = :numCourse and r.skier is not null group by r.skier.numSkier")
+    List<SkierRegistrationCount> countRegistrationsPerSkierForCourse(@Param("numCourse") Long numCourse);
+
+    @Query("select r.course.numCourse as numCourse, r.numWeek as numWeek, r.seat as seat from Registration r " +
+            "where r.course.typeCourse <> tn.esprit.spring.entities.TypeCourse.INDIVIDUAL")
+    List<CourseWeekSeat> findCollectiveSeats();
+
+    // Places d'une semaine, par l'index (cours, semaine, place) de la contrainte unique
+    @Query("select r.seat from Registration r " +
+            "where r.course.numCourse = :numCourse and r.numWeek = :numWeek and r.seat is not null")
+    List<Integer> findSeats(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek);
+
+    @Query("select r.skier.numSkier as numSkier, r.course.numCourse as numCourse, r.numWeek as numWeek " +
+            "from Registration r where r.skier.numSkier in :numSkiers and r.course.numCourse in :numCourses")
+    List<SkierCourseWeek> findExistingRegistrations(@Param("numSkiers") Collection<Long> numSkiers,
+                                                    @Param("numCourses") Collection<Long> numCourses);
+
+    // Par la contrainte unique (skieur, cours, semaine) : clés étrangères comparées sans jointure
+    @Query("select r from Registration r " +
+            "where r.skier.numSkier = ?1 and r.course.numCourse = ?2 and r.numWeek = ?3")
+    Optional<Registration> findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(Long numSkier, Long numCourse, int numWeek);
+
   //  long countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
 
 
@@ -2,25 +2,102 @@ package tn.esprit.spring.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.BirthYearPisteUsage;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierEngagementDTO;
+import tn.esprit.spring.dto.SkierRegistrationCount;
+import tn.esprit.spring.dto.SkierSpending;
+import tn.esprit.spring.dto.SubscriptionAgeAggregate;
 import tn.esprit.spring.entities.Color;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface ISkierRepository extends JpaRepository<Skier, Long> {
-   List<Skier> findBySubscription_TypeSub(TypeSubscription typeSubscription);
+   // Jointure interne : la base part de l'index de subscription puis rejoint skier par sa clé étrangère
+   @Query("select s from Skier s join s.subscription sub where sub.typeSub = :typeSub")
+   List<Skier> findBySubscription_TypeSub(@Param("typeSub") TypeSubscription typeSubscription);
    Skier findBySubscription(Subscription subscription);
 
-   List<Skier> findBySubscription_EndDateAfter(LocalDate currentDate);@Query("select s from Skier s JOIN s.pistes p where  p.color=:color ")
+   @Query("select s from Skier s join s.subscription sub where sub.endDate > :currentDate")
+   List<Skier> findBySubscription_EndDateAfter(@Param("currentDate") LocalDate currentDate);
+   @Query("select s from Skier s JOIN s.pistes p where  p.color=:color ")
    List<Skier> skiersByColorPiste(@Param("color") Color color);
-   Skier getSkierByNumSkier(int skier);
+   Skier getSkierByNumSkier(Long numSkier);
+
+   // Skieur, abonnement, inscriptions et leurs cours en une requête (skieur le plus actif)
+   @EntityGraph(Skier.WITH_REGISTRATIONS)
+   Optional<Skier> findWithRegistrationsByNumSkier(Long numSkier);
+
+   // Inscriptions par skieur, pour initialiser le SkierEngagementTracker
+   @Query("select r.skier.numSkier as numSkier, count(r) as registrations from Registration r " +
+           "where r.skier is not null group by r.skier.numSkier")
+   List<SkierRegistrationCount> countRegistrationsPerSkier();
+
+   @Query("select new tn.esprit.spring.dto.SkierEngagementDTO(s.numSkier, s.firstName, s.lastName, 0L) " +
+           "from Skier s where s.numSkier in :numSkiers")
+   List<SkierEngagementDTO> findEngagementDtos(@Param("numSkiers") Collection<Long> numSkiers);
+
+   // Skieur et pistes déjà parcourues, pour ajouter une descente sans chargement différé
+   @EntityGraph(Skier.WITH_PISTES)
+   Optional<Skier> findWithPistesByNumSkier(Long numSkier);
+
+   String SPENDING_SELECT = "select s.numSkier as numSkier, s.firstName as firstName, s.lastName as lastName, " +
+           "s.dateOfBirth as dateOfBirth, s.city as city, sub.typeSub as typeSubscription, " +
+           "sub.startDate as startDate, sub.price as subscriptionPrice, " +
+           "coalesce(sum(c.price), 0) as courseSpending " +
+           "from Skier s left join s.subscription sub left join s.registrations r left join r.course c ";
+   String SPENDING_GROUP_BY = "group by s.numSkier, s.firstName, s.lastName, s.dateOfBirth, s.city, " +
+           "sub.typeSub, sub.startDate, sub.price";
+
+   @Query(SPENDING_SELECT + SPENDING_GROUP_BY)
+   List<SkierSpending> findSpendingPerSkier();
+
+   @Query(SPENDING_SELECT + "where s.numSkier = :numSkier " + SPENDING_GROUP_BY)
+   SkierSpending findSpendingOfSkier(@Param("numSkier") Long numSkier);
+
+   @Query("select year(s.dateOfBirth) as birthYear, count(distinct s.numSkier) as skiers, count(p.numPiste) as excursions " +
+           "from Skier s left join s.pistes p where s.dateOfBirth is not null group by year(s.dateOfBirth)")
+   List<BirthYearPisteUsage> countPisteUsageByBirthYear();
+
+   @Query("select sub.typeSub as typeSubscription, count(s) as skiers, " +
+           "min(s.dateOfBirth) as oldestBirthDate, max(s.dateOfBirth) as youngestBirthDate, " +
+           "avg(year(s.dateOfBirth)) as averageBirthYear, " +
+           "sum(case when month(s.dateOfBirth) > :month or (month(s.dateOfBirth) = :month and day(s.dateOfBirth) > :day) " +
+           "then 1 else 0 end) as birthdaysPending " +
+           "from Skier s join s.subscription sub where s.dateOfBirth is not null group by sub.typeSub")
+   List<SubscriptionAgeAggregate> aggregateAgesBySubscriptionType(@Param("month") int month, @Param("day") int day);
+
+   String SKIER_DTO_SELECT = "select new tn.esprit.spring.dto.SkierDTO(s.numSkier, s.firstName, s.lastName, s.city, " +
+           "sub.typeSub, sub.startDate, sub.price) from Skier s left join s.subscription sub ";
 
+   @Query(SKIER_DTO_SELECT + "where s.numSkier = :numSkier")
+   Optional<SkierDTO> findDtoByNumSkier(@Param("numSkier") Long numSkier);
 
+   @Query("select new tn.esprit.spring.dto.SkierDTO(s.numSkier, s.firstName, s.lastName, s.city, " +
+           "sub.typeSub, sub.startDate, sub.price) from Skier s join s.subscription sub where sub.typeSub = :typeSub")
+   List<SkierDTO> findDtoBySubscriptionType(@Param("typeSub") TypeSubscription typeSubscription);
 
+   // Pagination par curseur sur numSkier : coût constant quelle que soit la page
+   @Query(SKIER_DTO_SELECT + "where s.numSkier > :after order by s.numSkier")
+   List<SkierDTO> findDtoPageAfter(@Param("after") Long after, Pageable pageable);
 
+   @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+   @Query(SKIER_DTO_SELECT + "order by s.numSkier")
+   Stream<SkierDTO> streamAllDtos();
 }
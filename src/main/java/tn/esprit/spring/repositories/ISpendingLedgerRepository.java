@@ -0,0 +1,58 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.SkierSpending;
+import tn.esprit.spring.entities.SpendingLedger;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface ISpendingLedgerRepository extends JpaRepository<SpendingLedger, Long> {
+
+    @Modifying
+    @Query("update SpendingLedger l set l.courseSpending = l.courseSpending + :delta, " +
+            "l.totalSpending = l.totalSpending + :delta where l.numSkier in :numSkiers")
+    int addCourseSpending(@Param("numSkiers") Collection<Long> numSkiers, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("update SpendingLedger l set l.subscriptionSpending = :price, " +
+            "l.totalSpending = l.courseSpending + :price where l.numSkier = :numSkier")
+    int setSubscriptionSpending(@Param("numSkier") Long numSkier, @Param("price") BigDecimal price);
+
+    // Réconciliation : skieurs sans ligne, créés à zéro puis recalculés par recomputeSpending
+    @Modifying
+    @Query(value = "insert into spending_ledger (num_skier, course_spending, subscription_spending, total_spending) " +
+            "select s.num_skier, 0, 0, 0 from skier s " +
+            "where not exists (select 1 from spending_ledger l where l.num_skier = s.num_skier)", nativeQuery = true)
+    int insertMissing();
+
+    // Correction depuis les tables sources dans la même instruction que l'écriture : un incrément validé
+    // entre la lecture de la réconciliation et cette mise à jour n'est pas écrasé
+    @Modifying
+    @Query(value = "update spending_ledger l set " +
+            "course_spending = (select coalesce(sum(c.price), 0) from registration r " +
+            "join course c on c.num_course = r.course_num_course where r.skier_num_skier = l.num_skier), " +
+            "subscription_spending = coalesce((select sub.price from skier s " +
+            "join subscription sub on sub.num_sub = s.subscription_num_sub where s.num_skier = l.num_skier), 0) " +
+            "where l.num_skier in :numSkiers", nativeQuery = true)
+    int recomputeSpending(@Param("numSkiers") Collection<Long> numSkiers);
+
+    // En instruction séparée : MySQL et H2 ne lisent pas les colonnes modifiées de la même façon dans un même set
+    @Modifying
+    @Query("update SpendingLedger l set l.totalSpending = l.courseSpending + l.subscriptionSpending " +
+            "where l.numSkier in :numSkiers")
+    int recomputeTotalSpending(@Param("numSkiers") Collection<Long> numSkiers);
+
+    @Query("select s.numSkier as numSkier, s.firstName as firstName, s.lastName as lastName, " +
+            "s.dateOfBirth as dateOfBirth, s.city as city, sub.typeSub as typeSubscription, " +
+            "sub.startDate as startDate, sub.price as subscriptionPrice, l.courseSpending as courseSpending, " +
+            "l.totalSpending as totalSpending " +
+            "from SpendingLedger l, Skier s left join s.subscription sub " +
+            "where s.numSkier = l.numSkier order by l.totalSpending desc, s.numSkier asc")
+    List<SkierSpending> findRanking(Pageable pageable);
+}
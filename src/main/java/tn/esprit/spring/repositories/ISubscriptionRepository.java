@@ -1,15 +1,24 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.dto.SubscriptionRevenueDTO;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface ISubscriptionRepository extends CrudRepository<Subscription, Long> {
 
@@ -18,7 +27,7 @@ public interface ISubscriptionRepository extends CrudRepository<Subscription, Lo
 
     List<Subscription> getSubscriptionsByStartDateBetween(LocalDate date1, LocalDate date2);
 
-    @Query("select distinct s from Subscription s where s.endDate <= CURRENT_TIME order by s.endDate")
+    @Query("select distinct s from Subscription s where s.endDate <= CURRENT_DATE order by s.endDate")
     List<Subscription> findDistinctOrderByEndDateAsc();
 
 
@@ -28,13 +37,39 @@ public interface ISubscriptionRepository extends CrudRepository<Subscription, Lo
     // Méthode à ajouter : Récupérer les abonnements expirant bientôt
     List<Subscription> getSubscriptionsByEndDateBetween(LocalDate startDate, LocalDate endDate);
 
-    // Méthode à ajouter : Calculer le revenu total par dates
-    @Query("select sum(s.price) from Subscription s where s.startDate between :startDate and :endDate")
-    Float calculateTotalRevenueBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    // Page suivante après le curseur (afterEndDate, afterNumSub), dans l'ordre de l'index idx_subscription_end_date
+    @Query("select s.numSub as numSub, s.endDate as endDate, s.typeSub as typeSubscription, s.price as price, " +
+            "sk.numSkier as numSkier, sk.firstName as firstName, sk.lastName as lastName " +
+            "from Skier sk join sk.subscription s where s.endDate between :startDate and :endDate " +
+            "and (s.endDate > :afterEndDate or (s.endDate = :afterEndDate and s.numSub > :afterNumSub)) " +
+            "order by s.endDate, s.numSub")
+    List<ExpiringSubscription> getSubscriptionsByEndDateBetween(@Param("startDate") LocalDate startDate,
+                                                                @Param("endDate") LocalDate endDate,
+                                                                @Param("afterEndDate") LocalDate afterEndDate,
+                                                                @Param("afterNumSub") Long afterNumSub,
+                                                                Pageable pageable);
+
+    String REVENUE_COLUMNS = "count(s), sum(cast(s.price as big_decimal)), sum(days_between(s.startDate, s.endDate))) ";
+    String REVENUE_FROM = "from Subscription s where s.startDate between :startDate and :endDate";
+
+    // Agrégats calculés par la base sur l'index (startDate, typeSub, price, endDate)
+    @Query("select new tn.esprit.spring.dto.SubscriptionRevenueDTO(" + REVENUE_COLUMNS + REVENUE_FROM)
+    SubscriptionRevenueDTO calculateRevenueBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("select new tn.esprit.spring.dto.SubscriptionRevenueDTO(s.typeSub, " + REVENUE_COLUMNS + REVENUE_FROM +
+            " group by s.typeSub order by s.typeSub")
+    List<SubscriptionRevenueDTO> calculateRevenueByTypeBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("select new tn.esprit.spring.dto.SubscriptionRevenueDTO(year(s.startDate), month(s.startDate), " + REVENUE_COLUMNS + REVENUE_FROM +
+            " group by year(s.startDate), month(s.startDate) order by year(s.startDate), month(s.startDate)")
+    List<SubscriptionRevenueDTO> calculateRevenueByMonthBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
-    // Méthode à ajouter : Calculer la durée moyenne des abonnements
-    @Query("select avg(s.endDate - s.startDate) from Subscription s")
-    Float calculateAverageSubscriptionDuration();
+    @Query("select avg(days_between(s.startDate, s.endDate)) from Subscription s")
+    Double calculateAverageSubscriptionDuration();
 
+    List<Subscription> findByNumSubGreaterThanOrderByNumSubAsc(Long after, Pageable pageable);
 
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select s from Subscription s order by s.numSub")
+    Stream<Subscription> streamAll();
 }
@@ -0,0 +1,26 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.WaitlistPromotionDTO;
+import tn.esprit.spring.dto.WaitlistSlot;
+import tn.esprit.spring.entities.WaitlistEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IWaitlistRepository extends CrudRepository<WaitlistEntry, Long> {
+
+    // Chargement des files en mémoire au démarrage : skieurs pas encore inscrits
+    @Query("select w.numEntry as numEntry, w.skier.numSkier as numSkier, w.course.numCourse as numCourse, " +
+            "w.numWeek as numWeek from WaitlistEntry w where w.registration is null")
+    List<WaitlistSlot> findAllSlots();
+
+    @Query("select w from WaitlistEntry w where w.skier.numSkier = ?1 and w.course.numCourse = ?2 and w.numWeek = ?3")
+    Optional<WaitlistEntry> findBySkierCourseAndWeek(Long numSkier, Long numCourse, int numWeek);
+
+    @Query("select new tn.esprit.spring.dto.WaitlistPromotionDTO(r.numRegistration, r.course.numCourse, r.numWeek, r.seat) " +
+            "from WaitlistEntry w join w.registration r where w.skier.numSkier = :numSkier order by w.numEntry")
+    List<WaitlistPromotionDTO> findPromotions(@Param("numSkier") Long numSkier);
+}
@@ -0,0 +1,120 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Instantanés des statistiques coûteuses, gardés au plus ttl-ms.
+ * Les instantanés lus récemment sont recalculés en tâche de fond avant expiration,
+ * de sorte que les tableaux de bord qui interrogent en boucle ne déclenchent pas le calcul.
+ */
+@Slf4j
+@Component
+public class AnalyticsCache {
+
+    public static final String PISTE_USAGE_BY_AGE_GROUP = "pisteUsageByAgeGroup";
+    public static final String AGE_BY_SUBSCRIPTION_TYPE = "ageBySubscriptionType";
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final ConcurrentMap<String, Snapshot<?>> snapshots = new ConcurrentHashMap<>();
+
+    public AnalyticsCache(@Value("${analytics.cache.enabled:true}") boolean enabled,
+                          @Value("${analytics.cache.ttl-ms:5000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Snapshot<T> snapshot = (Snapshot<T>) snapshots.computeIfAbsent(key, k -> new Snapshot<>(loader));
+        return snapshot.read(ttlMillis);
+    }
+
+    public void invalidate(String... keys) {
+        TransactionHooks.nowAndAfterCompletion(() -> invalidateNow(keys));
+    }
+
+    private void invalidateNow(String... keys) {
+        for (String key : keys) {
+            Snapshot<?> snapshot = snapshots.get(key);
+            if (snapshot != null) {
+                snapshot.invalidate();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.cache.refresh-ms:2000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        snapshots.forEach((key, snapshot) -> {
+            if (snapshot.isPolled(now, ttlMillis) && snapshot.isAging(now, ttlMillis)) {
+                try {
+                    snapshot.load();
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of " + key + " failed", e);
+                }
+            }
+        });
+    }
+
+    private static final class Snapshot<T> {
+        private final Supplier<T> loader;
+        // Chaque invalidation change de génération : un calcul commencé avant reste périmé
+        private final AtomicLong generation = new AtomicLong();
+        private volatile long loadedGeneration = -1;
+        private volatile T value;
+        private volatile long loadedAt;
+        private volatile long readAt;
+
+        private Snapshot(Supplier<T> loader) {
+            this.loader = loader;
+        }
+
+        private T read(long ttlMillis) {
+            readAt = System.currentTimeMillis();
+            if (isFresh(ttlMillis)) {
+                return value;
+            }
+            synchronized (this) {
+                return isFresh(ttlMillis) ? value : load();
+            }
+        }
+
+        private synchronized T load() {
+            long startGeneration = generation.get();
+            T loaded = loader.get();
+            value = loaded;
+            loadedAt = System.currentTimeMillis();
+            loadedGeneration = startGeneration;
+            return loaded;
+        }
+
+        private void invalidate() {
+            generation.incrementAndGet();
+        }
+
+        private boolean isFresh(long ttlMillis) {
+            return loadedGeneration == generation.get() && System.currentTimeMillis() - loadedAt < ttlMillis;
+        }
+
+        // Lu pendant les dix dernières périodes : quelqu'un interroge encore cet instantané
+        private boolean isPolled(long now, long ttlMillis) {
+            return now - readAt < 10 * ttlMillis;
+        }
+
+        private boolean isAging(long now, long ttlMillis) {
+            return loadedGeneration != generation.get() || now - loadedAt > ttlMillis / 2;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package tn.esprit.spring.services;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Contrainte violée par une écriture, reconnue par son nom : déclaré par Hibernate quand il le connaît,
+ * sinon cherché dans le message du pilote (H2 le met en majuscules, préfixé du schéma).
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName() : cause.getMessage();
+            if (message != null && message.toLowerCase().contains(constraintName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Recherche de disponibilités sans requête SQL : catalogue en mémoire des cours collectifs
+ * (type, support, niveau) et, pour les places, masques de semaines complètes du CourseCapacityTracker.
+ * Les cours particuliers n'ont pas de limite de places et ne sont pas indexés.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class CourseAvailabilityIndex {
+
+    private static final Comparator<CourseProfile> BY_NUM_COURSE = Comparator.comparing(profile -> profile.numCourse);
+
+    private ICourseRepository courseRepository;
+    private CourseCapacityTracker courseCapacityTracker;
+
+    // Trié par numCourse, remplacé en entier à chaque modification (copie à l'écriture) : lectures sans verrou
+    private final AtomicReference<CourseProfile[]> profiles = new AtomicReference<>(new CourseProfile[0]);
+
+    @PostConstruct
+    public void warmUp() {
+        reload();
+    }
+
+    // Après un chargement en masse hors JPA (générateur de données) : catalogue reconstruit depuis la base
+    public void reload() {
+        List<CourseProfile> loaded = new ArrayList<>();
+        for (Course course : courseRepository.findAll()) {
+            if (isCollective(course)) {
+                loaded.add(new CourseProfile(course));
+            }
+        }
+        loaded.sort(BY_NUM_COURSE);
+        synchronized (this) {
+            profiles.set(loaded.toArray(new CourseProfile[0]));
+        }
+        log.info("Course availability index loaded with " + loaded.size() + " collective courses");
+    }
+
+    // Cours ajouté ou modifié : pris en compte après le commit de la transaction courante
+    public void courseSaved(Course course) {
+        if (course == null || course.getNumCourse() == null) {
+            return;
+        }
+        CourseProfile profile = isCollective(course) ? new CourseProfile(course) : null;
+        Long numCourse = course.getNumCourse();
+        TransactionHooks.afterCommit(() -> replace(numCourse, profile));
+    }
+
+    /**
+     * Cours collectifs ayant au moins minSeats places libres dans une des semaines fromWeek..toWeek.
+     * numCourses vide ou null : tous les cours ; typeCourse, support ou level null : pas de filtre.
+     */
+    public List<CourseAvailabilityDTO> search(Collection<Long> numCourses, TypeCourse typeCourse, Support support,
+                                              Integer level, int fromWeek, int toWeek, int minSeats) {
+        if (!CourseCapacityTracker.isValidWeek(fromWeek) || !CourseCapacityTracker.isValidWeek(toWeek) || fromWeek > toWeek) {
+            throw new IllegalArgumentException("Weeks must be between 1 and " + CourseCapacityTracker.MAX_WEEK);
+        }
+        if (minSeats < 1 || minSeats > CourseCapacityTracker.MAX_PARTICIPANTS) {
+            throw new IllegalArgumentException("Seats must be between 1 and " + CourseCapacityTracker.MAX_PARTICIPANTS);
+        }
+        long requestedWeeks = ((1L << (toWeek - fromWeek + 1)) - 1) << fromWeek;
+        Set<Long> wanted = numCourses == null || numCourses.isEmpty() ? null : new HashSet<>(numCourses);
+        List<CourseAvailabilityDTO> available = new ArrayList<>();
+        for (CourseProfile profile : profiles.get()) {
+            if ((wanted != null && !wanted.contains(profile.numCourse))
+                    || (typeCourse != null && typeCourse != profile.typeCourse)
+                    || (support != null && support != profile.support)
+                    || (level != null && level != profile.level)) {
+                continue;
+            }
+            long weeks = courseCapacityTracker.weeksWithRoom(profile.numCourse) & requestedWeeks;
+            Map<Integer, Integer> freeSeatsByWeek = new LinkedHashMap<>();
+            while (weeks != 0) {
+                int numWeek = Long.numberOfTrailingZeros(weeks);
+                weeks &= weeks - 1;
+                int freeSeats = CourseCapacityTracker.MAX_PARTICIPANTS - courseCapacityTracker.occupiedSeats(profile.numCourse, numWeek);
+                if (freeSeats >= minSeats) {
+                    freeSeatsByWeek.put(numWeek, freeSeats);
+                }
+            }
+            if (!freeSeatsByWeek.isEmpty()) {
+                available.add(new CourseAvailabilityDTO(profile.numCourse, profile.typeCourse, profile.support,
+                        profile.level, profile.price, freeSeatsByWeek));
+            }
+        }
+        return available;
+    }
+
+    private synchronized void replace(Long numCourse, CourseProfile profile) {
+        CourseProfile[] current = profiles.get();
+        int index = Arrays.binarySearch(current, new CourseProfile(numCourse), BY_NUM_COURSE);
+        List<CourseProfile> updated = new ArrayList<>(Arrays.asList(current));
+        if (index >= 0) {
+            if (profile == null) {
+                updated.remove(index);
+            } else {
+                updated.set(index, profile);
+            }
+        } else if (profile != null) {
+            updated.add(-index - 1, profile);
+        }
+        profiles.set(updated.toArray(new CourseProfile[0]));
+    }
+
+    private static boolean isCollective(Course course) {
+        return course.getTypeCourse() != null && course.getTypeCourse() != TypeCourse.INDIVIDUAL;
+    }
+
+    private static final class CourseProfile {
+        private final Long numCourse;
+        private final TypeCourse typeCourse;
+        private final Support support;
+        private final int level;
+        private final Float price;
+
+        private CourseProfile(Course course) {
+            this.numCourse = course.getNumCourse();
+            this.typeCourse = course.getTypeCourse();
+            this.support = course.getSupport();
+            this.level = course.getLevel();
+            this.price = course.getPrice();
+        }
+
+        private CourseProfile(Long numCourse) {
+            this.numCourse = numCourse;
+            this.typeCourse = null;
+            this.support = null;
+            this.level = 0;
+            this.price = null;
+        }
+    }
+}
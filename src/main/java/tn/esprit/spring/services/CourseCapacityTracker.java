@@ -0,0 +1,185 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.dto.CourseWeekSeat;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Places occupées par semaine dans les cours collectifs, sans requête COUNT.
+ * Chaque semaine d'un cours est un masque de bits (une place par bit) réservé par compare-and-set ;
+ * un second masque par cours (un bit par semaine) marque les semaines complètes pour la recherche
+ * de disponibilités. La contrainte unique (cours, semaine, place) de Registration reste la source de vérité.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class CourseCapacityTracker {
+
+    public static final int MAX_PARTICIPANTS = 6;
+    public static final int MAX_WEEK = 53;
+    // Bits 1..MAX_WEEK : toutes les semaines de la saison
+    public static final long ALL_WEEKS = ((1L << MAX_WEEK) - 1) << 1;
+    private static final int FULL_MASK = (1 << MAX_PARTICIPANTS) - 1;
+
+    private IRegistrationRepository registrationRepository;
+
+    private final ConcurrentMap<Long, CourseWeeks> seatsByCourse = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void warmUp() {
+        List<CourseWeekSeat> seats = registrationRepository.findCollectiveSeats();
+        int seatless = 0;
+        for (CourseWeekSeat seat : seats) {
+            if (seat.getNumCourse() == null || !isValidWeek(seat.getNumWeek())) {
+                continue;
+            }
+            if (seat.getSeat() != null) {
+                markTaken(seat.getNumCourse(), seat.getNumWeek(), seat.getSeat());
+            } else {
+                seatless++; // restée sans place après V7 : la semaine était déjà surréservée
+            }
+        }
+        log.info("Course capacity tracker warmed with " + seats.size() + " registrations");
+        if (seatless > 0) {
+            log.warn(seatless + " collective registrations have no seat and are not counted");
+        }
+    }
+
+    // Après un chargement en masse hors JPA (générateur de données) : état reconstruit depuis la base
+    public void reload() {
+        seatsByCourse.clear();
+        warmUp();
+    }
+
+    /**
+     * Places de la semaine validées par une autre instance, découvertes par une violation de la contrainte unique :
+     * ajoutées à celles connues. Les places réservées ici par des transactions en cours ne sont jamais retirées.
+     */
+    public void resync(Long numCourse, int numWeek) {
+        for (Integer seat : registrationRepository.findSeats(numCourse, numWeek)) {
+            markTaken(numCourse, numWeek, seat);
+        }
+    }
+
+    /**
+     * Réserve la première place libre de la semaine.
+     * @return le numéro de place (1..6), ou 0 si le cours est complet
+     */
+    public int tryReserve(Long numCourse, int numWeek) {
+        CourseWeeks weeks = weeksOf(numCourse, numWeek);
+        while (true) {
+            int mask = weeks.seats.get(numWeek);
+            if (mask == FULL_MASK) {
+                return 0;
+            }
+            int bit = Integer.numberOfTrailingZeros(~mask);
+            if (weeks.seats.compareAndSet(numWeek, mask, mask | (1 << bit))) {
+                weeks.syncFull(numWeek);
+                return bit + 1;
+            }
+        }
+    }
+
+    // Place rendue si la transaction courante n'est pas validée ; 0 si le cours est complet
+    public int reserveUntilRollback(Long numCourse, int numWeek) {
+        int seat = tryReserve(numCourse, numWeek);
+        if (seat > 0) {
+            releaseOnRollback(numCourse, numWeek, seat);
+        }
+        return seat;
+    }
+
+    public void release(Long numCourse, int numWeek, int seat) {
+        CourseWeeks weeks = weeksOf(numCourse, numWeek);
+        int bit = 1 << (seat - 1);
+        int mask;
+        do {
+            mask = weeks.seats.get(numWeek);
+        } while (!weeks.seats.compareAndSet(numWeek, mask, mask & ~bit));
+        weeks.syncFull(numWeek);
+    }
+
+    // Libère la place si la transaction courante n'est pas validée
+    public void releaseOnRollback(Long numCourse, int numWeek, int seat) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(numCourse, numWeek, seat);
+                }
+            }
+        });
+    }
+
+    // Libère la place seulement une fois la suppression de l'inscription validée
+    public void releaseOnCommit(Long numCourse, int numWeek, int seat) {
+        TransactionHooks.afterCommit(() -> release(numCourse, numWeek, seat));
+    }
+
+    public int occupiedSeats(Long numCourse, int numWeek) {
+        if (!isValidWeek(numWeek)) {
+            throw new IllegalArgumentException("Week must be between 1 and " + MAX_WEEK);
+        }
+        CourseWeeks weeks = seatsByCourse.get(numCourse);
+        return weeks == null ? 0 : Integer.bitCount(weeks.seats.get(numWeek));
+    }
+
+    // Semaines (bit n = semaine n) où il reste au moins une place ; lecture seule, aucun cours créé
+    public long weeksWithRoom(Long numCourse) {
+        CourseWeeks weeks = seatsByCourse.get(numCourse);
+        return weeks == null ? ALL_WEEKS : ALL_WEEKS & ~weeks.full.get();
+    }
+
+    private void markTaken(Long numCourse, int numWeek, int seat) {
+        if (seat < 1 || seat > MAX_PARTICIPANTS) {
+            return;
+        }
+        CourseWeeks weeks = weeksOf(numCourse, numWeek);
+        weeks.seats.getAndAccumulate(numWeek, 1 << (seat - 1), (mask, bit) -> mask | bit);
+        weeks.syncFull(numWeek);
+    }
+
+    private CourseWeeks weeksOf(Long numCourse, int numWeek) {
+        if (!isValidWeek(numWeek)) {
+            throw new IllegalArgumentException("Week must be between 1 and " + MAX_WEEK);
+        }
+        return seatsByCourse.computeIfAbsent(numCourse, key -> new CourseWeeks());
+    }
+
+    public static boolean isValidWeek(Integer numWeek) {
+        return numWeek != null && numWeek >= 1 && numWeek <= MAX_WEEK;
+    }
+
+    private static final class CourseWeeks {
+        private final AtomicIntegerArray seats = new AtomicIntegerArray(MAX_WEEK + 1);
+        private final AtomicLong full = new AtomicLong();
+
+        // Recopie l'état complet/non complet de la semaine dans full, après chaque changement de places.
+        // Le masque est relu après l'écriture : la dernière modification de la semaine fixe toujours le bit.
+        private void syncFull(int numWeek) {
+            long bit = 1L << numWeek;
+            while (true) {
+                int mask = seats.get(numWeek);
+                long current = full.get();
+                long updated = mask == FULL_MASK ? current | bit : current & ~bit;
+                if ((updated == current || full.compareAndSet(current, updated)) && seats.get(numWeek) == mask) {
+                    return;
+                }
+            }
+        }
+    }
+}
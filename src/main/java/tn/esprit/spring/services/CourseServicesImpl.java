@@ -2,30 +2,68 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
 
+import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 @AllArgsConstructor
 @Service
 public class CourseServicesImpl implements  ICourseServices{
 
     private ICourseRepository courseRepository;
+    private IInstructorRepository instructorRepository;
+    private ISpendingLedgerServices spendingLedgerServices;
+    private CourseAvailabilityIndex availabilityIndex;
+    private InstructorScheduleCache scheduleCache;
 
     @Override
     public List<Course> retrieveAllCourses() {
         return courseRepository.findAll();
     }
 
+    @Override
+    public List<Course> retrieveCoursesAfter(Long after, int size) {
+        return courseRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(after, ListingStreamer.keysetPage(size));
+    }
+
+    @Override
+    public Stream<Course> streamAllCourses() {
+        return courseRepository.streamAll();
+    }
+
     @Override
     public Course addCourse(Course course) {
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        availabilityIndex.courseSaved(savedCourse);
+        return savedCourse;
     }
 
+    @Transactional
     @Override
     public Course updateCourse(Course course) {
-        return courseRepository.save(course);
+        Course previous = course.getNumCourse() == null ? null : courseRepository.findById(course.getNumCourse()).orElse(null);
+        // Lus avant save : l'entité chargée est celle que save met à jour
+        Float previousPrice = previous != null ? previous.getPrice() : null;
+        Support previousSupport = previous != null ? previous.getSupport() : null;
+        Course savedCourse = courseRepository.save(course);
+        // Prix absent compté comme 0 : un premier prix est aussi reporté sur les skieurs déjà inscrits
+        if (!Objects.equals(previousPrice, savedCourse.getPrice())) {
+            spendingLedgerServices.recordCoursePriceChange(savedCourse.getNumCourse(), previousPrice, savedCourse.getPrice());
+        }
+        availabilityIndex.courseSaved(savedCourse);
+        // Support changé : le cours quitte un planning de chacun de ses moniteurs pour entrer dans un autre
+        if (previous != null && previousSupport != savedCourse.getSupport()) {
+            instructorRepository.findNumInstructorsByCourse(savedCourse.getNumCourse()).forEach(scheduleCache::instructorChanged);
+        }
+        return savedCourse;
     }
 
     @Override
@@ -33,5 +71,11 @@ public class CourseServicesImpl implements  ICourseServices{
         return courseRepository.findById(numCourse).orElse(null);
     }
 
+    @Override
+    public List<CourseAvailabilityDTO> searchAvailability(Collection<Long> numCourses, TypeCourse typeCourse, Support support,
+                                                          Integer level, int fromWeek, int toWeek, int minSeats) {
+        return availabilityIndex.search(numCourses, typeCourse, support, level, fromWeek, toWeek, minSeats);
+    }
+
 
 }
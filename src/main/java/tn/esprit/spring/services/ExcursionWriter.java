@@ -0,0 +1,213 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Descentes remontées par les bornes des remontées mécaniques, écrites dans la table excursion
+ * par lots depuis un thread dédié plutôt qu'une entité Skier rechargée et sauvée à chaque passage.
+ * Une même descente (skieur, piste) reçue plusieurs fois dans la fenêtre dedup-window-ms n'est mise
+ * en file qu'une fois ; la file est bornée et l'appelant attend au plus offer-timeout-ms qu'elle se libère.
+ * Skieurs ou pistes inconnus et descentes déjà enregistrées sont écartés par l'INSERT lui-même.
+ */
+@Slf4j
+@Component
+public class ExcursionWriter {
+
+    public static final String EXCURSIONS_WRITTEN = "excursions.written";
+    public static final String EXCURSIONS_REJECTED = "excursions.rejected";
+    public static final String EXCURSIONS_QUEUED = "excursions.queued";
+
+    private static final String INSERT_EXCURSION = "insert into excursion (num_skier, num_piste) " +
+            "select s.num_skier, p.num_piste from skier s, piste p where s.num_skier = ? and p.num_piste = ? " +
+            "and not exists (select 1 from excursion e where e.num_skier = s.num_skier and e.num_piste = p.num_piste)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnalyticsCache analyticsCache;
+    private final BlockingQueue<Excursion> queue;
+    private final ConcurrentMap<Excursion, Long> recent = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long dedupWindowMillis;
+    private final long offerTimeoutMillis;
+    private final Counter written;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private Thread writer;
+    private long nextExpiry;
+
+    public ExcursionWriter(JdbcTemplate jdbcTemplate, AnalyticsCache analyticsCache, MeterRegistry meterRegistry,
+                           @Value("${excursions.queue-capacity:10000}") int queueCapacity,
+                           @Value("${excursions.batch-size:500}") int batchSize,
+                           @Value("${excursions.flush-interval-ms:200}") long flushIntervalMillis,
+                           @Value("${excursions.dedup-window-ms:60000}") long dedupWindowMillis,
+                           @Value("${excursions.offer-timeout-ms:50}") long offerTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.analyticsCache = analyticsCache;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.dedupWindowMillis = dedupWindowMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.written = meterRegistry.counter(EXCURSIONS_WRITTEN);
+        this.rejected = meterRegistry.counter(EXCURSIONS_REJECTED);
+        meterRegistry.gauge(EXCURSIONS_QUEUED, queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "excursion-writer");
+        writer.start();
+    }
+
+    /**
+     * @return false si la file est restée pleine pendant offer-timeout-ms : l'appelant doit réessayer plus tard
+     */
+    public boolean record(Long numSkier, Long numPiste) {
+        if (!running) {
+            rejected.increment();
+            return false;
+        }
+        Excursion excursion = new Excursion(numSkier, numPiste);
+        long now = System.currentTimeMillis();
+        Long seen = recent.putIfAbsent(excursion, now);
+        if (seen != null && (now - seen < dedupWindowMillis || !recent.replace(excursion, seen, now))) {
+            return true;
+        }
+        try {
+            // Arrêt pendant l'offer : le writer a pu sortir sur une file vide, la descente serait restée en file.
+            // Retrouvée dans la file, elle est refusée ; sinon le writer l'a prise et l'écrira
+            if (queue.offer(excursion, offerTimeoutMillis, TimeUnit.MILLISECONDS)
+                    && (running || !queue.remove(excursion))) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Refusée : un nouvel essai ne doit pas être pris pour un doublon
+        recent.remove(excursion, now);
+        rejected.increment();
+        return false;
+    }
+
+    // Arrêt de l'application : plus aucune descente acceptée, la file est vidée en base avant de rendre la main
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Excursion> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Excursion first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                    batch.clear();
+                }
+                forgetExpired();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+        log.info("Excursion writer stopped, queue drained");
+    }
+
+    private void flush(List<Excursion> batch) {
+        int inserted;
+        try {
+            int[][] counts = jdbcTemplate.batchUpdate(INSERT_EXCURSION, batch, batch.size(), (statement, excursion) -> {
+                statement.setLong(1, excursion.numSkier);
+                statement.setLong(2, excursion.numPiste);
+            });
+            inserted = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    inserted += Math.max(count, 0);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Excursion batch of " + batch.size() + " failed, writing it row by row", e);
+            inserted = flushRowByRow(batch);
+        }
+        written.increment(inserted);
+        if (inserted > 0) {
+            analyticsCache.invalidate(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP);
+        }
+    }
+
+    // Lot refusé pour une ligne (descente insérée entre-temps par une autre instance...) : seules les lignes en échec sont perdues
+    private int flushRowByRow(List<Excursion> batch) {
+        int inserted = 0;
+        for (Excursion excursion : batch) {
+            try {
+                inserted += jdbcTemplate.update(INSERT_EXCURSION, excursion.numSkier, excursion.numPiste);
+            } catch (DataAccessException e) {
+                rejected.increment();
+                recent.remove(excursion);
+                log.error("Lost excursion of skier " + excursion.numSkier + " on piste " + excursion.numPiste, e);
+            }
+        }
+        return inserted;
+    }
+
+    // Au plus une fois par intervalle de flush : la table des descentes récentes peut être grande
+    private void forgetExpired() {
+        long now = System.currentTimeMillis();
+        if (now < nextExpiry) {
+            return;
+        }
+        nextExpiry = now + flushIntervalMillis;
+        long expiry = now - dedupWindowMillis;
+        recent.values().removeIf(seen -> seen < expiry);
+    }
+
+    private static final class Excursion {
+        private final long numSkier;
+        private final long numPiste;
+
+        private Excursion(long numSkier, long numPiste) {
+            this.numSkier = numSkier;
+            this.numPiste = numPiste;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Excursion)) {
+                return false;
+            }
+            Excursion other = (Excursion) o;
+            return numSkier == other.numSkier && numPiste == other.numPiste;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(numSkier) * 31 + Long.hashCode(numPiste);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.ExpiringSubscription;
+
+import java.util.List;
+
+/**
+ * Destination des avis d'échéance (mail, SMS, file de messages...).
+ * Un lot peut être rejoué si le job s'arrête avant d'avoir enregistré sa position.
+ */
+public interface ExpiryNotifier {
+
+    void notify(List<ExpiringSubscription> batch);
+}
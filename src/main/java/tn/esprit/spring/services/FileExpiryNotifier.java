@@ -0,0 +1,44 @@
+package tn.esprit.spring.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.ExpiringSubscription;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Une ligne CSV par avis, ajoutée au fichier : pratique pour les tests et les imports
+@Component
+@ConditionalOnProperty(name = "subscription.expiry.notifier", havingValue = "file")
+public class FileExpiryNotifier implements ExpiryNotifier {
+
+    private final Path file;
+
+    public FileExpiryNotifier(@Value("${subscription.expiry.notifier-file:expiring-subscriptions.csv}") String file) {
+        this.file = Paths.get(file);
+    }
+
+    @Override
+    public synchronized void notify(List<ExpiringSubscription> batch) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (ExpiringSubscription subscription : batch) {
+                writer.write(subscription.getNumSub() + ";" + subscription.getEndDate() + ";"
+                        + subscription.getTypeSubscription() + ";" + subscription.getPrice() + ";"
+                        + subscription.getNumSkier() + ";" + subscription.getFirstName() + ";"
+                        + subscription.getLastName());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
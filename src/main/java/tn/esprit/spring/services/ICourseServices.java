@@ -1,19 +1,31 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ICourseServices {
 
     List<Course> retrieveAllCourses();
 
+    List<Course> retrieveCoursesAfter(Long after, int size);
+
+    // À consommer dans une transaction ouverte (voir ListingStreamer)
+    Stream<Course> streamAllCourses();
+
     Course  addCourse(Course  course);
 
     Course updateCourse(Course course);
 
     Course retrieveCourse(Long numCourse);
 
+    List<CourseAvailabilityDTO> searchAvailability(Collection<Long> numCourses, TypeCourse typeCourse, Support support,
+                                                   Integer level, int fromWeek, int toWeek, int minSeats);
+
 
 }
@@ -1,10 +1,12 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.InstructorWeekDTO;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Support;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IInstructorServices {
 
@@ -12,10 +14,17 @@ public interface IInstructorServices {
 
     List<Instructor> retrieveAllInstructors();
 
+    List<Instructor> retrieveInstructorsAfter(Long after, int size);
+
+    // À consommer dans une transaction ouverte (voir ListingStreamer)
+    Stream<Instructor> streamAllInstructors();
+
     Instructor updateInstructor(Instructor instructor);
 
     Instructor retrieveInstructor(Long numInstructor);
 
     Instructor addInstructorAndAssignToCourse(Instructor instructor, Long numCourse);
 
+    List<InstructorWeekDTO> retrieveInstructorSchedule(Long numInstructor, Support support);
+
 }
@@ -3,11 +3,17 @@ package tn.esprit.spring.services;
 import tn.esprit.spring.entities.Piste;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IPisteServices {
 
     List<Piste> retrieveAllPistes();
 
+    List<Piste> retrievePistesAfter(Long after, int size);
+
+    // À consommer dans une transaction ouverte (voir ListingStreamer)
+    Stream<Piste> streamAllPistes();
+
     Piste  addPiste(Piste  piste);
 
     void removePiste (Long numPiste);
@@ -1,5 +1,7 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.RegistrationRequestDTO;
+import tn.esprit.spring.dto.RegistrationResultDTO;
 import tn.esprit.spring.entities.*;
 
 import java.util.List;
@@ -8,7 +10,12 @@ public interface IRegistrationServices {
 
 	Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier);
 	Registration assignRegistrationToCourse(Long numRegistration, Long numCourse);
+	void removeRegistration(Long numRegistration);
 	Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours);
+	Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours, String idempotencyKey);
+	List<RegistrationResultDTO> addRegistrations(List<RegistrationRequestDTO> requests);
+	List<RegistrationResultDTO> addRegistrations(List<RegistrationRequestDTO> requests, String idempotencyKey);
+	Registration retrieveRegistration(Long numSkier, Long numCourse, int numWeek);
 	List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support);
 }
 
@@ -1,8 +1,13 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierEngagementDTO;
+import tn.esprit.spring.dto.SubscriptionAgeDTO;
 import tn.esprit.spring.entities.*;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface ISkierServices {
 
@@ -12,15 +17,25 @@ public interface ISkierServices {
 	void removeSkier (Long numSkier);
 	Skier retrieveSkier (Long numSkier);
 	List<Skier> retrieveAllSkiers();
+	SkierDTO retrieveSkierDTO(Long numSkier);
+	List<SkierDTO> retrieveSkiersAfter(Long after, int size);
+	// À consommer dans une transaction ouverte (voir ListingStreamer)
+	Stream<SkierDTO> streamAllSkiers();
 	Skier assignSkierToPiste(Long numSkieur, Long numPiste);
+	boolean recordExcursion(Long numSkier, Long numPiste);
 	List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription);
+	List<SkierDTO> retrieveSkierDTOsBySubscriptionType(TypeSubscription typeSubscription);
 
 	/*------------------------------------------------------------------------------------------------*/
 
 	Map<String, Double> analyzePisteUsageByAgeGroup();
+	Map<String, Double> analyzePisteUsageByAgeGroup(LocalDate referenceDate);
 	Map<String, Object> analyzeSkierEngagement();
-	List<Skier> findTopSpendingSkiers(int topN);
+	List<SkierEngagementDTO> retrieveMostActiveSkiers(int k);
+	List<SkierDTO> findTopSpendingSkiers(int topN, int page, int size);
 	Map<TypeSubscription, Double> getAverageAgeBySubscriptionType();
+	Map<TypeSubscription, SubscriptionAgeDTO> getAgeReportBySubscriptionType();
+	Map<TypeSubscription, SubscriptionAgeDTO> getAgeReportBySubscriptionType(LocalDate referenceDate);
 	Float calculateTotalSpendingBySkier(Long numSkier);
 
 
@@ -0,0 +1,23 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.SkierSpending;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ISpendingLedgerServices {
+
+    Float getTotalSpending(Long numSkier);
+
+    List<SkierSpending> getRanking(int page, int size);
+
+    void recordCourseSpending(Long numSkier, Float amount);
+
+    void recordSubscription(Long numSkier, Float subscriptionPrice);
+
+    void recordCoursePriceChange(Long numCourse, Float oldPrice, Float newPrice);
+
+    void removeSkier(Long numSkier);
+
+    Map<String, Integer> reconcile();
+}
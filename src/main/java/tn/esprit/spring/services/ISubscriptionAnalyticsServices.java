@@ -0,0 +1,15 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.SubscriptionRevenueDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ISubscriptionAnalyticsServices {
+
+    SubscriptionRevenueDTO getRevenue(LocalDate startDate, LocalDate endDate);
+
+    List<SubscriptionRevenueDTO> getRevenueByType(LocalDate startDate, LocalDate endDate);
+
+    List<SubscriptionRevenueDTO> getRevenueByMonth(LocalDate startDate, LocalDate endDate);
+}
@@ -3,6 +3,7 @@ package tn.esprit.spring.services;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
@@ -23,6 +24,11 @@ public interface ISubscriptionServices {
 
 	public List<Subscription> getAllSubscriptions();
 
+	public List<Subscription> retrieveSubscriptionsAfter(Long after, int size);
+
+	// À consommer dans une transaction ouverte (voir ListingStreamer)
+	public Stream<Subscription> streamAllSubscriptions();
+
 	public Float calculateTotalRevenue(LocalDate startDate, LocalDate endDate);
 
 	public List<Subscription> findSubscriptionsExpiringSoon();
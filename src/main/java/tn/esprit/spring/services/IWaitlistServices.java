@@ -0,0 +1,15 @@
+package tn.esprit.spring.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprit.spring.dto.WaitlistPromotionDTO;
+
+import java.util.List;
+
+public interface IWaitlistServices {
+
+	int joinWaitlist(Long numSkier, Long numCourse, int numWeek);
+	void leaveWaitlist(Long numSkier, Long numCourse, int numWeek);
+	int waitlistPosition(Long numSkier, Long numCourse, int numWeek);
+	List<WaitlistPromotionDTO> retrievePromotions(Long numSkier);
+	SseEmitter subscribe(Long numSkier);
+}
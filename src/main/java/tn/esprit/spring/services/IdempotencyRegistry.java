@@ -0,0 +1,116 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Résultats des écritures reçues avec un en-tête Idempotency-Key, gardés pour les max-keys clés les plus récentes.
+ * Une requête rejouée avec la même clé reçoit le résultat de la première, sans nouvelle validation ni requête SQL ;
+ * une requête rejouée pendant que la première s'exécute attend son résultat, au plus replay-wait-ms. Un échec n'est pas gardé :
+ * le client peut réessayer. Au-delà de la mémoire (clé évincée, autre instance), les contraintes uniques
+ * de la base empêchent toujours le doublon.
+ */
+@Component
+public class IdempotencyRegistry {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYS = "registrations.idempotent.replays";
+
+    private final Map<String, Execution> executions;
+    private final Counter replays;
+    private final long replayWaitMillis;
+
+    public IdempotencyRegistry(@Value("${registration.idempotency.max-keys:10000}") int maxKeys,
+                               @Value("${registration.idempotency.replay-wait-ms:10000}") long replayWaitMillis,
+                               MeterRegistry meterRegistry) {
+        this.executions = new LinkedHashMap<String, Execution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Execution> eldest) {
+                return size() > maxKeys;
+            }
+        };
+        this.replays = meterRegistry.counter(IDEMPOTENT_REPLAYS);
+        this.replayWaitMillis = replayWaitMillis;
+    }
+
+    /**
+     * @param key valeur de l'en-tête Idempotency-Key, action exécutée sans mémorisation si null
+     * @param request description de la requête : une même clé ne peut pas servir à une autre requête
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String request, Supplier<T> action) {
+        if (key == null || key.isEmpty()) {
+            return action.get();
+        }
+        Execution execution;
+        boolean first = false;
+        synchronized (executions) {
+            execution = executions.get(key);
+            if (execution == null) {
+                execution = new Execution(request);
+                executions.put(key, execution);
+                first = true;
+            }
+        }
+        if (!first) {
+            if (!execution.request.equals(request)) {
+                throw new KeyReusedException();
+            }
+            replays.increment();
+            try {
+                return (T) execution.result.get(replayWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new RequestInProgressException();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInProgressException();
+            }
+        }
+        try {
+            T result = action.get();
+            execution.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (executions) {
+                executions.remove(key, execution);
+            }
+            execution.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Même clé, autre requête : erreur du client, distincte des refus de validation
+    public static final class KeyReusedException extends IllegalArgumentException {
+        private KeyReusedException() {
+            super("Idempotency key already used for another request");
+        }
+    }
+
+    // Première requête encore en cours : le client réessaiera plus tard avec la même clé
+    public static final class RequestInProgressException extends IllegalStateException {
+        private RequestInProgressException() {
+            super("A request with this idempotency key is still in progress");
+        }
+    }
+
+    private static final class Execution {
+        private final String request;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Execution(String request) {
+            this.request = request;
+        }
+    }
+}
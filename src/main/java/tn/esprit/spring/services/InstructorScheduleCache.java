@@ -0,0 +1,123 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.InstructorWeekDTO;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planning des moniteurs par support (semaines distinctes, cours et places occupées), gardé par moniteur
+ * jusqu'à ce qu'un de ses cours reçoive ou perde une inscription, ou que ses cours changent.
+ */
+@AllArgsConstructor
+@Component
+public class InstructorScheduleCache {
+
+    private IRegistrationRepository registrationRepository;
+
+    private final ConcurrentMap<ScheduleKey, Schedule> schedules = new ConcurrentHashMap<>();
+    // Chaque invalidation change de génération : un planning chargé pendant ce temps n'est pas gardé
+    private final AtomicLong generation = new AtomicLong();
+
+    public List<InstructorWeekDTO> weeksOf(Long numInstructor, Support support) {
+        ScheduleKey key = new ScheduleKey(numInstructor, support);
+        Schedule schedule = schedules.get(key);
+        if (schedule != null) {
+            return schedule.weeks;
+        }
+        long startGeneration = generation.get();
+        Schedule loaded = load(numInstructor, support);
+        schedule = schedules.compute(key, (k, current) ->
+                current != null || generation.get() != startGeneration ? current : loaded);
+        // Invalidation commencée pendant l'insertion : son parcours de la map a pu ne pas voir l'entrée
+        if (schedule == loaded && generation.get() != startGeneration) {
+            schedules.remove(key, loaded);
+        }
+        return schedule != null ? schedule.weeks : loaded.weeks;
+    }
+
+    // Inscriptions ajoutées, déplacées ou supprimées dans ces cours
+    public void coursesChanged(Collection<Long> numCourses) {
+        Set<Long> changed = new HashSet<>(numCourses);
+        changed.remove(null);
+        if (!changed.isEmpty()) {
+            invalidate(() -> schedules.values().removeIf(schedule -> !Collections.disjoint(schedule.courses, changed)));
+        }
+    }
+
+    // Cours du moniteur modifiés
+    public void instructorChanged(Long numInstructor) {
+        if (numInstructor != null) {
+            invalidate(() -> schedules.keySet().removeIf(key -> key.numInstructor.equals(numInstructor)));
+        }
+    }
+
+    // Après un chargement en masse hors JPA (générateur de données)
+    public void clear() {
+        invalidate(schedules::clear);
+    }
+
+    private void invalidate(Runnable removal) {
+        TransactionHooks.nowAndAfterCompletion(() -> {
+            generation.incrementAndGet();
+            removal.run();
+        });
+    }
+
+    private Schedule load(Long numInstructor, Support support) {
+        Set<Long> courses = new HashSet<>();
+        SortedMap<Integer, long[]> byWeek = new TreeMap<>();
+        for (CourseWeekCount count : registrationRepository.countRegistrationsPerWeekOfInstructorBySupport(numInstructor, support)) {
+            courses.add(count.getNumCourse());
+            if (count.getNumWeek() != null) {
+                long[] totals = byWeek.computeIfAbsent(count.getNumWeek(), week -> new long[2]);
+                totals[0]++;
+                totals[1] += count.getRegistrations();
+            }
+        }
+        List<InstructorWeekDTO> weeks = new ArrayList<>(byWeek.size());
+        byWeek.forEach((numWeek, totals) -> weeks.add(new InstructorWeekDTO(numWeek, (int) totals[0], totals[1])));
+        return new Schedule(courses, Collections.unmodifiableList(weeks));
+    }
+
+    private static final class Schedule {
+        private final Set<Long> courses;
+        private final List<InstructorWeekDTO> weeks;
+
+        private Schedule(Set<Long> courses, List<InstructorWeekDTO> weeks) {
+            this.courses = courses;
+            this.weeks = weeks;
+        }
+    }
+
+    private static final class ScheduleKey {
+        private final Long numInstructor;
+        private final Support support;
+
+        private ScheduleKey(Long numInstructor, Support support) {
+            this.numInstructor = numInstructor;
+            this.support = support;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ScheduleKey)) {
+                return false;
+            }
+            ScheduleKey other = (ScheduleKey) o;
+            return numInstructor.equals(other.numInstructor) && support == other.support;
+        }
+
+        @Override
+        public int hashCode() {
+            return numInstructor.hashCode() * 31 + Objects.hashCode(support);
+        }
+    }
+}
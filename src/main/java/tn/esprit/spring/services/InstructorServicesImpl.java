@@ -2,14 +2,19 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import tn.esprit.spring.dto.InstructorWeekDTO;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IInstructorRepository;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
@@ -17,10 +22,11 @@ public class InstructorServicesImpl implements IInstructorServices{
 
     private IInstructorRepository instructorRepository;
     private ICourseRepository courseRepository;
+    private InstructorScheduleCache scheduleCache;
 
     @Override
     public Instructor addInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        return scheduleChanged(instructorRepository.save(instructor));
     }
 
     @Override
@@ -28,9 +34,19 @@ public class InstructorServicesImpl implements IInstructorServices{
         return instructorRepository.findAll();
     }
 
+    @Override
+    public List<Instructor> retrieveInstructorsAfter(Long after, int size) {
+        return instructorRepository.findByNumInstructorGreaterThanOrderByNumInstructorAsc(after, ListingStreamer.keysetPage(size));
+    }
+
+    @Override
+    public Stream<Instructor> streamAllInstructors() {
+        return instructorRepository.streamAll();
+    }
+
     @Override
     public Instructor updateInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        return scheduleChanged(instructorRepository.save(instructor));
     }
 
     @Override
@@ -44,7 +60,22 @@ public class InstructorServicesImpl implements IInstructorServices{
         Set<Course> courseSet = new HashSet<>();
         courseSet.add(course);
         instructor.setCourses(courseSet);
-        return instructorRepository.save(instructor);
+        return scheduleChanged(instructorRepository.save(instructor));
+    }
+
+    @Override
+    public List<InstructorWeekDTO> retrieveInstructorSchedule(Long numInstructor, Support support) {
+        return scheduleCache.weeksOf(numInstructor, support);
+    }
+
+    // Cours attribués ou retirés : planning du moniteur et de l'ancien moniteur de ces cours à recharger
+    private Instructor scheduleChanged(Instructor instructor) {
+        scheduleCache.instructorChanged(instructor.getNumInstructor());
+        if (instructor.getCourses() != null) {
+            scheduleCache.coursesChanged(instructor.getCourses().stream()
+                    .filter(Objects::nonNull).map(Course::getNumCourse).collect(Collectors.toSet()));
+        }
+        return instructor;
     }
 
 
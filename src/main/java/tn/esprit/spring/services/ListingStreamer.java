@@ -0,0 +1,95 @@
+package tn.esprit.spring.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Écrit une liste complète (tableau JSON ou NDJSON) ligne par ligne depuis un curseur base de données.
+ * Le contexte de persistance est vidé tous les clear-every éléments : la mémoire reste constante
+ * quelle que soit la taille de la table.
+ */
+@Component
+public class ListingStreamer {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int clearEvery;
+
+    public ListingStreamer(EntityManager entityManager, ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${listing.stream.clear-every:500}") int clearEvery) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // Flush explicite par lot plutôt qu'après chaque ligne
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Nommée dans le paquet des services : servie par le réplica quand il y en a un
+        this.transactionTemplate.setName(ListingStreamer.class.getName() + ".write");
+        this.clearEvery = clearEvery;
+    }
+
+    // Première page après le curseur : la position est portée par la clause where, pas par un offset
+    public static Pageable keysetPage(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    public <T> void writeJsonArray(Supplier<Stream<T>> source, Function<? super T, ?> mapper, OutputStream out) {
+        write(source, mapper, out, false);
+    }
+
+    public <T> void writeNdjson(Supplier<Stream<T>> source, Function<? super T, ?> mapper, OutputStream out) {
+        write(source, mapper, out, true);
+    }
+
+    private <T> void write(Supplier<Stream<T>> source, Function<? super T, ?> mapper, OutputStream out, boolean ndjson) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<T> rows = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                int written = 0;
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    rowWriter.writeValue(generator, mapper.apply(iterator.next()));
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written % clearEvery == 0) {
+                        generator.flush();
+                        entityManager.clear();
+                    }
+                }
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.ExpiringSubscription;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "subscription.expiry.notifier", havingValue = "log", matchIfMissing = true)
+public class LogExpiryNotifier implements ExpiryNotifier {
+
+    @Override
+    public void notify(List<ExpiringSubscription> batch) {
+        for (ExpiringSubscription subscription : batch) {
+            log.info("Subscription " + subscription.getNumSub() + " of skier " + subscription.getNumSkier()
+                    + " (" + subscription.getFirstName() + " " + subscription.getLastName() + ") expires on "
+                    + subscription.getEndDate());
+        }
+    }
+}
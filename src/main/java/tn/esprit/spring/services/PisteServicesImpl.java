@@ -6,6 +6,7 @@ import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.repositories.IPisteRepository;
 
 import java.util.List;
+import java.util.stream.Stream;
 @AllArgsConstructor
 @Service
 public class PisteServicesImpl implements  IPisteServices{
@@ -17,6 +18,16 @@ public class PisteServicesImpl implements  IPisteServices{
         return pisteRepository.findAll();
     }
 
+    @Override
+    public List<Piste> retrievePistesAfter(Long after, int size) {
+        return pisteRepository.findByNumPisteGreaterThanOrderByNumPisteAsc(after, ListingStreamer.keysetPage(size));
+    }
+
+    @Override
+    public Stream<Piste> streamAllPistes() {
+        return pisteRepository.streamAll();
+    }
+
     @Override
     public Piste addPiste(Piste piste) {
         return pisteRepository.save(piste);
@@ -1,40 +1,141 @@
 package tn.esprit.spring.services;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.InstructorWeekDTO;
+import tn.esprit.spring.dto.RegistrationRequestDTO;
+import tn.esprit.spring.dto.RegistrationResultDTO;
+import tn.esprit.spring.dto.SkierCourseWeek;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
 
+import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.Period;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 @Slf4j
 @AllArgsConstructor
 @Service
 public class RegistrationServicesImpl implements  IRegistrationServices{
 
+    public static final String REGISTRATION_OUTCOMES = "registrations.outcome";
+    private static final int ADULT_AGE = 16;
+    private static final int SEAT_CONFLICT_ATTEMPTS = 3;
+
     private IRegistrationRepository registrationRepository;
     private ISkierRepository skierRepository;
     private ICourseRepository courseRepository;
+    private ISpendingLedgerServices spendingLedgerServices;
+    private CourseCapacityTracker courseCapacityTracker;
+    private SkierEngagementTracker engagementTracker;
+    private InstructorScheduleCache scheduleCache;
+    private MeterRegistry meterRegistry;
+    private ApplicationEventPublisher eventPublisher;
+    private IdempotencyRegistry idempotencyRegistry;
+    private PlatformTransactionManager transactionManager;
 
+    // Compteurs créés à zéro : chaque issue est visible dans Prometheus avant sa première occurrence
+    @PostConstruct
+    void registerOutcomeCounters() {
+        for (RegistrationStatus status : RegistrationStatus.values()) {
+            outcomeCounter(status);
+        }
+    }
 
     @Override
     public Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier) {
         Skier skier = skierRepository.findById(numSkier).orElse(null);
+        boolean newRegistration = registration.getNumRegistration() == null;
         registration.setSkier(skier);
-        return registrationRepository.save(registration);
+        Registration savedRegistration = registrationRepository.save(registration);
+        if (newRegistration && skier != null) {
+            engagementTracker.registrationAdded(skier.getNumSkier());
+        }
+        if (savedRegistration.getCourse() != null) {
+            scheduleCache.coursesChanged(Collections.singleton(savedRegistration.getCourse().getNumCourse()));
+        }
+        return savedRegistration;
     }
 
     @Override
     public Registration assignRegistrationToCourse(Long numRegistration, Long numCourse) {
-        Registration registration = registrationRepository.findById(numRegistration).orElse(null);
-        Course course = courseRepository.findById(numCourse).orElse(null);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return retryOnSeatConflict(() -> transaction.execute(status -> moveRegistration(numRegistration, numCourse)),
+                () -> registrationRepository.findById(numRegistration)
+                        .ifPresent(registration -> resyncWeek(numCourse, registration.getNumWeek())));
+    }
+
+    // La place du nouveau cours est prise avant l'écriture ; l'ancienne n'est rendue qu'au commit
+    private Registration moveRegistration(Long numRegistration, Long numCourse) {
+        Registration registration = registrationRepository.findById(numRegistration)
+                .orElseThrow(() -> new IllegalArgumentException("Registration not found"));
+        Course course = courseRepository.findById(numCourse)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found"));
+        Course previousCourse = registration.getCourse();
+        if (previousCourse != null && previousCourse.getNumCourse().equals(numCourse)) {
+            return registration;
+        }
+        Integer previousSeat = registration.getSeat();
+        Integer seat = null;
+        if (course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+            if (!CourseCapacityTracker.isValidWeek(registration.getNumWeek())) {
+                throw new IllegalArgumentException("Week must be between 1 and " + CourseCapacityTracker.MAX_WEEK);
+            }
+            seat = courseCapacityTracker.reserveUntilRollback(numCourse, registration.getNumWeek());
+            if (seat == 0) {
+                throw new IllegalArgumentException("Course is full this week");
+            }
+        }
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        registration.setSeat(seat);
+        Registration savedRegistration = registrationRepository.save(registration);
+        if (previousCourse != null && previousSeat != null) {
+            releaseSeat(previousCourse.getNumCourse(), registration.getNumWeek(), previousSeat);
+        }
+        scheduleCache.coursesChanged(Arrays.asList(previousCourse != null ? previousCourse.getNumCourse() : null, numCourse));
+        if (registration.getSkier() != null) {
+            Float previousPrice = previousCourse != null ? previousCourse.getPrice() : null;
+            Float newPrice = course.getPrice();
+            spendingLedgerServices.recordCourseSpending(registration.getSkier().getNumSkier(),
+                    (newPrice != null ? newPrice : 0f) - (previousPrice != null ? previousPrice : 0f));
+        }
+        return savedRegistration;
+    }
+
+    // Place libérée et compteurs d'engagement mis à jour seulement si la suppression est validée
+    @Transactional
+    @Override
+    public void removeRegistration(Long numRegistration) {
+        Registration registration = registrationRepository.findById(numRegistration)
+                .orElseThrow(() -> new IllegalArgumentException("Registration not found"));
+        registrationRepository.delete(registration);
+        Course course = registration.getCourse();
+        if (course != null && registration.getSeat() != null) {
+            releaseSeat(course.getNumCourse(), registration.getNumWeek(), registration.getSeat());
+        }
+        if (course != null) {
+            scheduleCache.coursesChanged(Collections.singleton(course.getNumCourse()));
+        }
+        if (registration.getSkier() != null) {
+            Long numSkier = registration.getSkier().getNumSkier();
+            if (course != null && course.getPrice() != null) {
+                spendingLedgerServices.recordCourseSpending(numSkier, -course.getPrice());
+            }
+            engagementTracker.registrationRemoved(numSkier);
+        }
     }
 
     @Transactional
@@ -44,11 +145,13 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
         Course course = courseRepository.findById(numCours).orElse(null);
 
         if (skier == null || course == null) {
+            countOutcome(RegistrationStatus.NOT_FOUND);
             return null;
         }
 
         if(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(registration.getNumWeek(), skier.getNumSkier(), course.getNumCourse()) >=1){
             log.info("Sorry, you're already register to this course of the week :" + registration.getNumWeek());
+            countOutcome(RegistrationStatus.DUPLICATE);
             return null;
         }
 
@@ -58,49 +161,234 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
         switch (course.getTypeCourse()) {
             case INDIVIDUAL:
                 log.info("add without tests");
+                countOutcome(RegistrationStatus.ACCEPTED);
                 return assignRegistration(registration, skier, course);
 
             case COLLECTIVE_CHILDREN:
-                if (ageSkieur < 16) {
+                if (ageSkieur < ADULT_AGE) {
                     log.info("Ok CHILD !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
+                    return assignSeat(registration, skier, course);
                 }
                 else{
                     log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Adult Course...");
+                    countOutcome(RegistrationStatus.AGE_REJECTED);
                 }
                 break;
 
             default:
-                if (ageSkieur >= 16) {
+                if (ageSkieur >= ADULT_AGE) {
                     log.info("Ok ADULT !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
+                    return assignSeat(registration, skier, course);
                 }
                 log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Child Course...");
+                countOutcome(RegistrationStatus.AGE_REJECTED);
         }
         return registration;
 
     }
+    /**
+     * Avec une clé d'idempotence, une requête rejouée reçoit l'inscription d'origine ; si elle existe déjà
+     * (clé oubliée, autre instance), c'est elle qui est renvoyée au lieu d'un doublon refusé.
+     * Sans transaction englobante : un rejeu attend le résultat de la première requête sans tenir de connexion.
+     */
+    @Override
+    public Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours,
+                                                                 String idempotencyKey) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return retryOnSeatConflict(() -> transaction.execute(status ->
+                    addRegistrationAndAssignToSkierAndCourse(registration, numSkieur, numCours)),
+                    () -> resyncWeek(numCours, registration.getNumWeek()));
+        }
+        int numWeek = registration.getNumWeek();
+        return idempotencyRegistry.execute(idempotencyKey, "addAndAssignToSkierAndCourse/" + numSkieur + "/" + numCours + "/" + numWeek,
+                () -> retryOnSeatConflict(() -> transaction.execute(status -> {
+                    Registration added = addRegistrationAndAssignToSkierAndCourse(registration, numSkieur, numCours);
+                    return added != null ? added : retrieveRegistration(numSkieur, numCours, numWeek);
+                }), () -> resyncWeek(numCours, numWeek)));
+    }
+
+    @Override
+    public List<RegistrationResultDTO> addRegistrations(List<RegistrationRequestDTO> requests, String idempotencyKey) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return idempotencyRegistry.execute(idempotencyKey, "bulk/" + requests,
+                () -> retryOnSeatConflict(() -> transaction.execute(status -> addRegistrations(requests)),
+                        () -> requests.forEach(request -> resyncWeek(request.getNumCourse(), request.getNumWeek()))));
+    }
+
+    /**
+     * Inscription groupée : skieurs et cours chargés en un findAllById chacun, doublons vérifiés
+     * par une seule requête pour tout le lot, places réservées dans le CourseCapacityTracker,
+     * puis insertion en batch JDBC.
+     */
+    @Transactional
+    @Override
+    public List<RegistrationResultDTO> addRegistrations(List<RegistrationRequestDTO> requests) {
+        Set<Long> numSkiers = requests.stream().map(RegistrationRequestDTO::getNumSkier)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> numCourses = requests.stream().map(RegistrationRequestDTO::getNumCourse)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Skier> skiers = skierRepository.findAllById(numSkiers).stream()
+                .collect(Collectors.toMap(Skier::getNumSkier, Function.identity()));
+        Map<Long, Course> courses = courseRepository.findAllById(numCourses).stream()
+                .collect(Collectors.toMap(Course::getNumCourse, Function.identity()));
+
+        Set<String> registered = new HashSet<>();
+        if (!skiers.isEmpty() && !courses.isEmpty()) {
+            for (SkierCourseWeek existing : registrationRepository.findExistingRegistrations(skiers.keySet(), courses.keySet())) {
+                registered.add(registrationKey(existing.getNumSkier(), existing.getNumCourse(), existing.getNumWeek()));
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        List<RegistrationResultDTO> results = new ArrayList<>(requests.size());
+        List<Registration> accepted = new ArrayList<>();
+        List<RegistrationResultDTO> acceptedResults = new ArrayList<>();
+        for (RegistrationRequestDTO request : requests) {
+            RegistrationResultDTO result = new RegistrationResultDTO(request.getNumSkier(), request.getNumCourse(),
+                    request.getNumWeek(), null, null);
+            results.add(result);
+            Skier skier = skiers.get(request.getNumSkier());
+            Course course = courses.get(request.getNumCourse());
+            if (skier == null || course == null) {
+                result.setStatus(RegistrationStatus.NOT_FOUND);
+                continue;
+            }
+            // Refusée ici plutôt que par le tracker, qui lèverait une exception et annulerait tout le lot
+            if (!CourseCapacityTracker.isValidWeek(request.getNumWeek())) {
+                result.setStatus(RegistrationStatus.INVALID_WEEK);
+                continue;
+            }
+            // Clé retenue seulement une fois l'élément accepté : une répétition d'un élément refusé garde le vrai motif
+            String key = registrationKey(skier.getNumSkier(), course.getNumCourse(), request.getNumWeek());
+            if (registered.contains(key)) {
+                result.setStatus(RegistrationStatus.DUPLICATE);
+                continue;
+            }
+            Registration registration = new Registration();
+            registration.setNumWeek(request.getNumWeek());
+            registration.setSkier(skier);
+            registration.setCourse(course);
+            if (course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+                int age = Period.between(skier.getDateOfBirth(), today).getYears();
+                boolean adultCourse = course.getTypeCourse() != TypeCourse.COLLECTIVE_CHILDREN;
+                if (adultCourse != (age >= ADULT_AGE)) {
+                    result.setStatus(RegistrationStatus.AGE_REJECTED);
+                    continue;
+                }
+                int seat = courseCapacityTracker.reserveUntilRollback(course.getNumCourse(), request.getNumWeek());
+                if (seat == 0) {
+                    result.setStatus(RegistrationStatus.FULL);
+                    continue;
+                }
+                registration.setSeat(seat);
+            }
+            registered.add(key);
+            result.setStatus(RegistrationStatus.ACCEPTED);
+            accepted.add(registration);
+            acceptedResults.add(result);
+        }
+
+        registrationRepository.saveAll(accepted);
+        Map<Long, Float> spendingBySkier = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Registration registration = accepted.get(i);
+            acceptedResults.get(i).setNumRegistration(registration.getNumRegistration());
+            if (registration.getCourse().getPrice() != null) {
+                spendingBySkier.merge(registration.getSkier().getNumSkier(), registration.getCourse().getPrice(), Float::sum);
+            }
+        }
+        spendingBySkier.forEach(spendingLedgerServices::recordCourseSpending);
+        scheduleCache.coursesChanged(accepted.stream().map(registration -> registration.getCourse().getNumCourse())
+                .collect(Collectors.toSet()));
+        accepted.stream().collect(Collectors.groupingBy(registration -> registration.getSkier().getNumSkier(), Collectors.counting()))
+                .forEach((numSkier, count) -> engagementTracker.registrationsChanged(numSkier, count.intValue()));
+        results.forEach(result -> countOutcome(result.getStatus()));
+        log.info(accepted.size() + " of " + requests.size() + " registrations accepted");
+        return results;
+    }
+
+    /**
+     * Place déjà prise par une autre instance, inconnue du tracker : la transaction est annulée (ses places
+     * rendues), resync relit en base les places des semaines visées, puis nouvel essai.
+     */
+    private <T> T retryOnSeatConflict(Supplier<T> attempt, Runnable resync) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (DataIntegrityViolationException e) {
+                if (i == SEAT_CONFLICT_ATTEMPTS || !ConstraintViolations.violates(e, Registration.COURSE_WEEK_SEAT_CONSTRAINT)) {
+                    throw e;
+                }
+                log.warn("Seat already taken by another instance, retrying with the seats read from the database");
+                resync.run();
+            }
+        }
+    }
+
+    private void resyncWeek(Long numCourse, Integer numWeek) {
+        if (CourseCapacityTracker.isValidWeek(numWeek)) {
+            courseCapacityTracker.resync(numCourse, numWeek);
+        }
+    }
+
+    private void countOutcome(RegistrationStatus status) {
+        outcomeCounter(status).increment();
+    }
+
+    private Counter outcomeCounter(RegistrationStatus status) {
+        return meterRegistry.counter(REGISTRATION_OUTCOMES, "outcome", status.name().toLowerCase());
+    }
+
+    private static String registrationKey(Long numSkier, Long numCourse, int numWeek) {
+        return numSkier + "/" + numCourse + "/" + numWeek;
+    }
+
+    // Semaine hors saison : refusée comme dans addRegistrations, le tracker n'a pas de places pour elle
+    private Registration assignSeat(Registration registration, Skier skier, Course course) {
+        if (!CourseCapacityTracker.isValidWeek(registration.getNumWeek())) {
+            log.info("Week must be between 1 and " + CourseCapacityTracker.MAX_WEEK);
+            countOutcome(RegistrationStatus.INVALID_WEEK);
+            return null;
+        }
+        int seat = courseCapacityTracker.reserveUntilRollback(course.getNumCourse(), registration.getNumWeek());
+        if (seat == 0) {
+            log.info("Full Course ! Please choose another week to register or join the waitlist !");
+            countOutcome(RegistrationStatus.FULL);
+            return null;
+        }
+        registration.setSeat(seat);
+        log.info("Course successfully added !");
+        countOutcome(RegistrationStatus.ACCEPTED);
+        return assignRegistration(registration, skier, course);
+    }
+
+    // Tête de la file d'attente inscrite après le commit, une fois la place rendue au tracker
+    private void releaseSeat(Long numCourse, int numWeek, int seat) {
+        courseCapacityTracker.releaseOnCommit(numCourse, numWeek, seat);
+        eventPublisher.publishEvent(new SeatReleasedEvent(numCourse, numWeek));
+    }
+
     private Registration assignRegistration (Registration registration, Skier skier, Course course){
         registration.setSkier(skier);
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        Registration savedRegistration = registrationRepository.save(registration);
+        spendingLedgerServices.recordCourseSpending(skier.getNumSkier(), course.getPrice());
+        engagementTracker.registrationAdded(skier.getNumSkier());
+        scheduleCache.coursesChanged(Collections.singleton(course.getNumCourse()));
+        return savedRegistration;
+    }
+
+    @Override
+    public Registration retrieveRegistration(Long numSkier, Long numCourse, int numWeek) {
+        return registrationRepository.findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(numSkier, numCourse, numWeek).orElse(null);
     }
 
     @Override
     public List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support) {
-        return registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support);
+        return scheduleCache.weeksOf(numInstructor, support).stream()
+                .map(InstructorWeekDTO::getNumWeek)
+                .collect(Collectors.toList());
     }
 
 }
@@ -0,0 +1,12 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Publié à la suppression d'une inscription à un cours collectif, traité après le commit (file d'attente)
+@Getter
+@AllArgsConstructor
+public class SeatReleasedEvent {
+    private final Long numCourse;
+    private final int numWeek;
+}
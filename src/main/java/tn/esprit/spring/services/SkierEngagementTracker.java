@@ -0,0 +1,164 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.SkierRegistrationCount;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Engagement des skieurs tenu à jour à chaque écriture : nombre de skieurs, nombre d'inscriptions
+ * et index trié des skieurs par nombre d'inscriptions (décroissant, puis numSkier croissant).
+ * Moyenne et skieur le plus actif en temps constant, top-K en O(K).
+ * Les mises à jour faites dans une transaction ne sont appliquées qu'après son commit.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class SkierEngagementTracker {
+
+    private static final int RELOAD_ATTEMPTS = 3;
+
+    private ISkierRepository skierRepository;
+
+    private final Map<Long, Integer> registrationsBySkier = new HashMap<>();
+    private final NavigableMap<Integer, NavigableSet<Long>> skiersByRegistrations = new TreeMap<>(Comparator.reverseOrder());
+    private final AtomicLong skiers = new AtomicLong();
+    private final AtomicLong registrations = new AtomicLong();
+    // Mises à jour appliquées depuis le démarrage, sous le verrou : détecte celles faites pendant un rechargement
+    private final AtomicLong changes = new AtomicLong();
+
+    @PostConstruct
+    public void warmUp() {
+        reload();
+    }
+
+    // Recalcul complet depuis la base : démarrage, chargement en masse, correction nocturne des écarts.
+    // Une mise à jour appliquée pendant la lecture la rendrait périmée : on relit, et après plusieurs
+    // échecs la dernière lecture se fait sous le verrou, les mises à jour attendant la fin du rechargement
+    @Scheduled(cron = "${engagement.reload-cron:0 45 3 * * *}")
+    public void reload() {
+        for (int attempt = 1; attempt < RELOAD_ATTEMPTS; attempt++) {
+            long startChanges = changes.get();
+            long total = skierRepository.count();
+            List<SkierRegistrationCount> counts = skierRepository.countRegistrationsPerSkier();
+            synchronized (this) {
+                if (changes.get() == startChanges) {
+                    replace(total, counts);
+                    return;
+                }
+            }
+        }
+        synchronized (this) {
+            replace(skierRepository.count(), skierRepository.countRegistrationsPerSkier());
+        }
+    }
+
+    private void replace(long total, List<SkierRegistrationCount> counts) {
+        registrationsBySkier.clear();
+        skiersByRegistrations.clear();
+        long registered = 0;
+        for (SkierRegistrationCount count : counts) {
+            move(count.getNumSkier(), count.getRegistrations().intValue());
+            registered += count.getRegistrations();
+        }
+        skiers.set(total);
+        registrations.set(registered);
+        log.info("Skier engagement tracker loaded : " + total + " skiers, " + counts.size() + " with registrations");
+    }
+
+    public void skierAdded(Long numSkier) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                changes.incrementAndGet();
+                skiers.incrementAndGet();
+            }
+        });
+    }
+
+    public void skierRemoved(Long numSkier) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                changes.incrementAndGet();
+                skiers.decrementAndGet();
+                registrations.addAndGet(-move(numSkier, 0));
+            }
+        });
+    }
+
+    public void registrationAdded(Long numSkier) {
+        registrationsChanged(numSkier, 1);
+    }
+
+    public void registrationRemoved(Long numSkier) {
+        registrationsChanged(numSkier, -1);
+    }
+
+    public void registrationsChanged(Long numSkier, int delta) {
+        if (numSkier == null || delta == 0) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                changes.incrementAndGet();
+                int current = registrationsBySkier.getOrDefault(numSkier, 0);
+                int updated = Math.max(0, current + delta);
+                move(numSkier, updated);
+                registrations.addAndGet(updated - current);
+            }
+        });
+    }
+
+    public synchronized double averageRegistrationsPerSkier() {
+        long total = skiers.get();
+        return total == 0 ? 0.0 : (double) registrations.get() / total;
+    }
+
+    public long skiers() {
+        return skiers.get();
+    }
+
+    public long registrations() {
+        return registrations.get();
+    }
+
+    // Skieur le plus actif, null si aucune inscription
+    public synchronized Long mostActiveSkier() {
+        return skiersByRegistrations.isEmpty() ? null : skiersByRegistrations.firstEntry().getValue().first();
+    }
+
+    // Les k skieurs les plus actifs avec leur nombre d'inscriptions, dans l'ordre du classement
+    public synchronized LinkedHashMap<Long, Integer> topSkiers(int k) {
+        LinkedHashMap<Long, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<Integer, NavigableSet<Long>> bucket : skiersByRegistrations.entrySet()) {
+            for (Long numSkier : bucket.getValue()) {
+                if (top.size() >= k) {
+                    return top;
+                }
+                top.put(numSkier, bucket.getKey());
+            }
+        }
+        return top;
+    }
+
+    // Place le skieur dans le seau de son nouveau nombre d'inscriptions ; renvoie l'ancien nombre
+    private int move(Long numSkier, int count) {
+        Integer previous = count > 0 ? registrationsBySkier.put(numSkier, count) : registrationsBySkier.remove(numSkier);
+        if (previous != null) {
+            NavigableSet<Long> bucket = skiersByRegistrations.get(previous);
+            bucket.remove(numSkier);
+            if (bucket.isEmpty()) {
+                skiersByRegistrations.remove(previous);
+            }
+        }
+        if (count > 0) {
+            skiersByRegistrations.computeIfAbsent(count, key -> new TreeSet<>()).add(numSkier);
+        }
+        return previous == null ? 0 : previous;
+    }
+}
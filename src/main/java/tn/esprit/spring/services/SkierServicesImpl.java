@@ -2,12 +2,21 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.BirthYearPisteUsage;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierEngagementDTO;
+import tn.esprit.spring.dto.SkierSpending;
+import tn.esprit.spring.dto.SubscriptionAgeAggregate;
+import tn.esprit.spring.dto.SubscriptionAgeDTO;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
 
 import java.time.LocalDate;
+import java.time.Period;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
@@ -16,6 +25,7 @@ public class SkierServicesImpl implements ISkierServices {
     // Constante pour éviter la duplication de "Skier not found"
     private static final String SKIER_NOT_FOUND = "Skier not found";
     private static final String SUBSCRIPTION_NOT_FOUND = "Subscription not found";
+    private static final String[] AGE_GROUPS = {"Children (0-12)", "Teens (13-19)", "Adults (20-59)", "Seniors (60+)"};
 
 
     private ISkierRepository skierRepository;
@@ -23,12 +33,30 @@ public class SkierServicesImpl implements ISkierServices {
     private ICourseRepository courseRepository;
     private IRegistrationRepository registrationRepository;
     private ISubscriptionRepository subscriptionRepository;
+    private ISpendingLedgerServices spendingLedgerServices;
+    private AnalyticsCache analyticsCache;
+    private SkierEngagementTracker engagementTracker;
+    private ExcursionWriter excursionWriter;
+    private CourseCapacityTracker courseCapacityTracker;
 
+    @Transactional(readOnly = true)
     @Override
     public List<Skier> retrieveAllSkiers() {
         return skierRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<SkierDTO> retrieveSkiersAfter(Long after, int size) {
+        return skierRepository.findDtoPageAfter(after, ListingStreamer.keysetPage(size));
+    }
+
+    @Override
+    public Stream<SkierDTO> streamAllSkiers() {
+        return skierRepository.streamAllDtos();
+    }
+
+    @Transactional
     @Override
     public Skier addSkier(Skier skier) {
         switch (skier.getSubscription().getTypeSub()) {
@@ -42,10 +70,15 @@ public class SkierServicesImpl implements ISkierServices {
                 skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(1));
                 break;
         }
-        return skierRepository.save(skier);
+        Skier savedSkier = skierRepository.save(skier);
+        spendingLedgerServices.recordSubscription(savedSkier.getNumSkier(), savedSkier.getSubscription().getPrice());
+        engagementTracker.skierAdded(savedSkier.getNumSkier());
+        analyticsCache.invalidate(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP, AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
+        return savedSkier;
     }
 
 
+    @Transactional
     @Override
     public Skier assignSkierToSubscription(Long numSkier, Long numSubscription) {
         Skier skier = skierRepository.findById(numSkier)
@@ -54,9 +87,14 @@ public class SkierServicesImpl implements ISkierServices {
                 .orElseThrow(() -> new IllegalArgumentException(SUBSCRIPTION_NOT_FOUND));
 
         skier.setSubscription(subscription);
-        return skierRepository.save(skier);
+        Skier savedSkier = skierRepository.save(skier);
+        spendingLedgerServices.recordSubscription(savedSkier.getNumSkier(), subscription.getPrice());
+        analyticsCache.invalidate(AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
+        return savedSkier;
     }
 
+    // Cours collectif : une place réservée par inscription, comme RegistrationServicesImpl ; complet = tout est annulé
+    @Transactional
     @Override
     public Skier addSkierAndAssignToCourse(Skier skier, Long numCourse) {
         Skier savedSkier = skierRepository.save(skier);
@@ -66,18 +104,33 @@ public class SkierServicesImpl implements ISkierServices {
         savedSkier.getRegistrations().forEach(registration -> {
             registration.setSkier(savedSkier);
             registration.setCourse(course);
+            if (course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+                int seat = courseCapacityTracker.reserveUntilRollback(course.getNumCourse(), registration.getNumWeek());
+                if (seat == 0) {
+                    throw new IllegalArgumentException("Course is full for week " + registration.getNumWeek());
+                }
+                registration.setSeat(seat);
+            }
             registrationRepository.save(registration);
+            spendingLedgerServices.recordCourseSpending(savedSkier.getNumSkier(), course.getPrice());
         });
+        engagementTracker.skierAdded(savedSkier.getNumSkier());
+        engagementTracker.registrationsChanged(savedSkier.getNumSkier(), savedSkier.getRegistrations().size());
+        analyticsCache.invalidate(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP, AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
 
         return savedSkier;
     }
 
+    @Transactional
     @Override
     public void removeSkier(Long numSkier) {
         if (!skierRepository.existsById(numSkier)) {
             throw new IllegalArgumentException(SKIER_NOT_FOUND);
         }
+        spendingLedgerServices.removeSkier(numSkier);
         skierRepository.deleteById(numSkier);
+        engagementTracker.skierRemoved(numSkier);
+        analyticsCache.invalidate(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP, AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
     }
 
     @Override
@@ -86,15 +139,29 @@ public class SkierServicesImpl implements ISkierServices {
                 .orElseThrow(() -> new IllegalArgumentException(SKIER_NOT_FOUND));
     }
 
+    @Override
+    public SkierDTO retrieveSkierDTO(Long numSkier) {
+        return skierRepository.findDtoByNumSkier(numSkier)
+                .orElseThrow(() -> new IllegalArgumentException(SKIER_NOT_FOUND));
+    }
+
     @Override
     public Skier assignSkierToPiste(Long numSkieur, Long numPiste) {
-        Skier skier = skierRepository.findById(numSkieur)
+        Skier skier = skierRepository.findWithPistesByNumSkier(numSkieur)
                 .orElseThrow(() -> new IllegalArgumentException(SKIER_NOT_FOUND));
         Piste piste = pisteRepository.findById(numPiste)
                 .orElseThrow(() -> new IllegalArgumentException("Piste not found"));
 
         skier.getPistes().add(piste);
-        return skierRepository.save(skier);
+        Skier savedSkier = skierRepository.save(skier);
+        analyticsCache.invalidate(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP);
+        return savedSkier;
+    }
+
+    // Passage aux bornes : mis en file pour l'ExcursionWriter, écrit par lots hors du thread de la requête
+    @Override
+    public boolean recordExcursion(Long numSkier, Long numPiste) {
+        return excursionWriter.record(numSkier, numPiste);
     }
 
     @Override
@@ -102,97 +169,169 @@ public class SkierServicesImpl implements ISkierServices {
         return skierRepository.findBySubscription_TypeSub(typeSubscription);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<SkierDTO> retrieveSkierDTOsBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierRepository.findDtoBySubscriptionType(typeSubscription);
+    }
+
     /*--------------------------------------------------------------------------------------------*/
 
+    @Transactional(readOnly = true)
     @Override
     public Map<String, Double> analyzePisteUsageByAgeGroup() {
-        LocalDate currentDate = LocalDate.now();
-        Map<String, List<Integer>> ageGroups = new HashMap<>();
-        ageGroups.put("Children (0-12)", new ArrayList<>());
-        ageGroups.put("Teens (13-19)", new ArrayList<>());
-        ageGroups.put("Adults (20-59)", new ArrayList<>());
-        ageGroups.put("Seniors (60+)", new ArrayList<>());
-
-        // Group skiers by age
-        skierRepository.findAll().forEach(skier -> {
-            int age = currentDate.getYear() - skier.getDateOfBirth().getYear();
-            if (age <= 12) {
-                ageGroups.get("Children (0-12)").add(skier.getPistes().size());
-            } else if (age <= 19) {
-                ageGroups.get("Teens (13-19)").add(skier.getPistes().size());
-            } else if (age <= 59) {
-                ageGroups.get("Adults (20-59)").add(skier.getPistes().size());
-            } else {
-                ageGroups.get("Seniors (60+)").add(skier.getPistes().size());
-            }
-        });
+        return analyticsCache.get(AnalyticsCache.PISTE_USAGE_BY_AGE_GROUP, () -> analyzePisteUsageByAgeGroup(LocalDate.now()));
+    }
+
+    // Une seule requête groupée par année de naissance : pas de chargement des skieurs ni de leurs pistes
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Double> analyzePisteUsageByAgeGroup(LocalDate referenceDate) {
+        long[] skiers = new long[AGE_GROUPS.length];
+        long[] excursions = new long[AGE_GROUPS.length];
+        for (BirthYearPisteUsage usage : skierRepository.countPisteUsageByBirthYear()) {
+            int group = ageGroupOf(referenceDate.getYear() - usage.getBirthYear());
+            skiers[group] += usage.getSkiers();
+            excursions[group] += usage.getExcursions();
+        }
 
         // Calculate average piste usage per age group
         Map<String, Double> averagePisteUsage = new HashMap<>();
-        ageGroups.forEach((group, usage) -> {
-            double average = usage.stream().mapToInt(i -> i).average().orElse(0.0);
-            averagePisteUsage.put(group, average);
-        });
-
+        for (int group = 0; group < AGE_GROUPS.length; group++) {
+            averagePisteUsage.put(AGE_GROUPS[group], skiers[group] == 0 ? 0.0 : (double) excursions[group] / skiers[group]);
+        }
         return averagePisteUsage;
     }
 
+    private static int ageGroupOf(int age) {
+        if (age <= 12) {
+            return 0;
+        } else if (age <= 19) {
+            return 1;
+        } else if (age <= 59) {
+            return 2;
+        }
+        return 3;
+    }
+
+    // Agrégats tenus à jour par le SkierEngagementTracker : seul le skieur le plus actif est lu en base
+    @Transactional(readOnly = true)
     @Override
     public Map<String, Object> analyzeSkierEngagement() {
-        List<Skier> skiers = skierRepository.findAll();
         Map<String, Object> statistics = new HashMap<>();
 
-        double averageCoursesPerSkier = skiers.stream()
-                .mapToInt(skier -> skier.getRegistrations().size())
-                .average()
-                .orElse(0.0);
+        Long mostActive = engagementTracker.mostActiveSkier();
+        Skier mostActiveSkier = mostActive == null ? null
+                : skierRepository.findWithRegistrationsByNumSkier(mostActive).orElse(null);
 
-        Skier mostActiveSkier = skiers.stream()
-                .max(Comparator.comparingInt(skier -> skier.getRegistrations().size()))
-                .orElse(null);
-
-        statistics.put("averageCoursesPerSkier", averageCoursesPerSkier);
+        statistics.put("averageCoursesPerSkier", engagementTracker.averageRegistrationsPerSkier());
         statistics.put("mostActiveSkier", mostActiveSkier);
 
         return statistics;
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public List<Skier> findTopSpendingSkiers(int topN) {
-        return skierRepository.findAll().stream()
-                .sorted((skier1, skier2) -> {
-                    Float totalSpend1 = calculateTotalSpendingBySkier(skier1.getNumSkier());
-                    Float totalSpend2 = calculateTotalSpendingBySkier(skier2.getNumSkier());
-                    return totalSpend2.compareTo(totalSpend1); // Tri en ordre décroissant
-                })
-                .limit(topN)
+    public List<SkierEngagementDTO> retrieveMostActiveSkiers(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        Map<Long, Integer> top = engagementTracker.topSkiers(k);
+        if (top.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, SkierEngagementDTO> skiers = skierRepository.findEngagementDtos(top.keySet()).stream()
+                .collect(Collectors.toMap(SkierEngagementDTO::getNumSkier, skier -> skier));
+        List<SkierEngagementDTO> ranking = new ArrayList<>(top.size());
+        top.forEach((numSkier, registrations) -> {
+            SkierEngagementDTO skier = skiers.get(numSkier);
+            if (skier != null) {
+                skier.setRegistrations(registrations);
+                ranking.add(skier);
+            }
+        });
+        return ranking;
+    }
+
+    /**
+     * Classement des plus gros dépensiers lu dans le grand livre des dépenses (SpendingLedger),
+     * trié par l'index sur totalSpending : seules les lignes de la page demandée sont lues.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<SkierDTO> findTopSpendingSkiers(int topN, int page, int size) {
+        if (topN <= 0 || page < 0 || size <= 0) {
+            throw new IllegalArgumentException("topN and size must be positive, page must not be negative");
+        }
+        int from = page * size;
+        if (from >= topN) {
+            return new ArrayList<>();
+        }
+        return spendingLedgerServices.getRanking(page, size).stream()
+                .limit((long) topN - from)
+                .map(this::toSpendingDTO)
                 .collect(Collectors.toList());
     }
 
+    private SkierDTO toSpendingDTO(SkierSpending spending) {
+        SkierDTO skierDTO = new SkierDTO();
+        skierDTO.setNumSkier(spending.getNumSkier());
+        skierDTO.setFirstName(spending.getFirstName());
+        skierDTO.setLastName(spending.getLastName());
+        skierDTO.setDateOfBirth(spending.getDateOfBirth());
+        skierDTO.setCity(spending.getCity());
+        skierDTO.setTypeSubscription(spending.getTypeSubscription());
+        skierDTO.setStartDate(spending.getStartDate());
+        skierDTO.setPrice(spending.getSubscriptionPrice());
+        // Total du grand livre qui a servi au tri : la page reste cohérente avec son propre classement
+        skierDTO.setTotalSpending(spending.getTotalSpending() != null ? spending.getTotalSpending().floatValue() : 0f);
+        return skierDTO;
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public Map<TypeSubscription, Double> getAverageAgeBySubscriptionType() {
-        LocalDate today = LocalDate.now();
-        return Arrays.stream(TypeSubscription.values())
-                .collect(Collectors.toMap(
-                        type -> type,
-                        type -> skierRepository.findBySubscription_TypeSub(type).stream()
-                                .mapToInt(skier -> today.getYear() - skier.getDateOfBirth().getYear())
-                                .average().orElse(0.0)
-                ));
+        Map<TypeSubscription, SubscriptionAgeDTO> report = getAgeReportBySubscriptionType();
+        Map<TypeSubscription, Double> averageAges = new EnumMap<>(TypeSubscription.class);
+        for (TypeSubscription type : TypeSubscription.values()) {
+            SubscriptionAgeDTO ages = report.get(type);
+            averageAges.put(type, ages == null ? 0.0 : ages.getAverageAge());
+        }
+        return averageAges;
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public Float calculateTotalSpendingBySkier(Long numSkier) {
-        Skier skier = skierRepository.findById(numSkier)
-                .orElseThrow(() -> new IllegalArgumentException(SKIER_NOT_FOUND));
-
-        Float courseCost = skier.getRegistrations().stream()
-                .map(registration -> registration.getCourse().getPrice())
-                .reduce(0f, Float::sum);
+    public Map<TypeSubscription, SubscriptionAgeDTO> getAgeReportBySubscriptionType() {
+        return analyticsCache.get(AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE, () -> getAgeReportBySubscriptionType(LocalDate.now()));
+    }
 
-        Float subscriptionCost = skier.getSubscription() != null ? skier.getSubscription().getPrice() : 0f;
+    /**
+     * Un seul GROUP BY typeSub : effectif, dates de naissance extrêmes, année de naissance moyenne
+     * et nombre d'anniversaires pas encore passés, d'où l'âge exact moyen sans charger de skieur.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Map<TypeSubscription, SubscriptionAgeDTO> getAgeReportBySubscriptionType(LocalDate referenceDate) {
+        Map<TypeSubscription, SubscriptionAgeDTO> report = new EnumMap<>(TypeSubscription.class);
+        for (SubscriptionAgeAggregate aggregate : skierRepository.aggregateAgesBySubscriptionType(
+                referenceDate.getMonthValue(), referenceDate.getDayOfMonth())) {
+            long skiers = aggregate.getSkiers();
+            double averageAge = referenceDate.getYear() - aggregate.getAverageBirthYear();
+            report.put(aggregate.getTypeSubscription(), new SubscriptionAgeDTO(
+                    aggregate.getTypeSubscription(),
+                    skiers,
+                    averageAge,
+                    averageAge - (double) aggregate.getBirthdaysPending() / skiers,
+                    Period.between(aggregate.getYoungestBirthDate(), referenceDate).getYears(),
+                    Period.between(aggregate.getOldestBirthDate(), referenceDate).getYears()));
+        }
+        return report;
+    }
 
-        return courseCost + subscriptionCost;
+    @Override
+    public Float calculateTotalSpendingBySkier(Long numSkier) {
+        return spendingLedgerServices.getTotalSpending(numSkier);
     }
 }
 
@@ -0,0 +1,199 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.SkierRegistrationCount;
+import tn.esprit.spring.dto.SkierSpending;
+import tn.esprit.spring.entities.SpendingLedger;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.ISpendingLedgerRepository;
+
+import javax.transaction.Transactional;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@AllArgsConstructor
+@Service
+public class SpendingLedgerServicesImpl implements ISpendingLedgerServices {
+
+    private static final BigDecimal TOLERANCE = new BigDecimal("0.01");
+    private static final int UPDATE_CHUNK_SIZE = 500;
+    private static final String INSERT_EMPTY_LEDGER = "insert into spending_ledger " +
+            "(num_skier, course_spending, subscription_spending, total_spending) values (?, 0, 0, 0)";
+
+    private ISpendingLedgerRepository spendingLedgerRepository;
+    private ISkierRepository skierRepository;
+    private IRegistrationRepository registrationRepository;
+    private PlatformTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    @Override
+    public Float getTotalSpending(Long numSkier) {
+        if (!spendingLedgerRepository.existsById(numSkier)) {
+            if (skierRepository.findSpendingOfSkier(numSkier) == null) {
+                throw new IllegalArgumentException("Skier not found");
+            }
+            createLedgerIfMissing(numSkier);
+        }
+        return spendingLedgerRepository.findById(numSkier)
+                .orElseThrow(() -> new IllegalArgumentException("Skier not found"))
+                .getTotalSpending().floatValue();
+    }
+
+    @Override
+    public List<SkierSpending> getRanking(int page, int size) {
+        return spendingLedgerRepository.findRanking(PageRequest.of(page, size));
+    }
+
+    @Transactional
+    @Override
+    public void recordCourseSpending(Long numSkier, Float amount) {
+        if (numSkier == null || amount == null) {
+            return;
+        }
+        if (!createLedgerIfMissing(numSkier)) {
+            spendingLedgerRepository.addCourseSpending(Collections.singleton(numSkier), toMoney(amount));
+        }
+    }
+
+    @Transactional
+    @Override
+    public void recordSubscription(Long numSkier, Float subscriptionPrice) {
+        if (numSkier == null) {
+            return;
+        }
+        createLedgerIfMissing(numSkier);
+        spendingLedgerRepository.setSubscriptionSpending(numSkier, toMoney(subscriptionPrice));
+    }
+
+    // Les lignes absentes du grand livre seront recalculées à la lecture ou à la réconciliation
+    @Transactional
+    @Override
+    public void recordCoursePriceChange(Long numCourse, Float oldPrice, Float newPrice) {
+        BigDecimal delta = toMoney(newPrice).subtract(toMoney(oldPrice));
+        if (numCourse == null || delta.signum() == 0) {
+            return;
+        }
+        Map<Long, List<Long>> skiersByRegistrationCount = registrationRepository
+                .countRegistrationsPerSkierForCourse(numCourse).stream()
+                .collect(Collectors.groupingBy(SkierRegistrationCount::getRegistrations,
+                        Collectors.mapping(SkierRegistrationCount::getNumSkier, Collectors.toList())));
+
+        skiersByRegistrationCount.forEach((registrations, numSkiers) -> {
+            for (int from = 0; from < numSkiers.size(); from += UPDATE_CHUNK_SIZE) {
+                List<Long> chunk = numSkiers.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, numSkiers.size()));
+                spendingLedgerRepository.addCourseSpending(chunk, delta.multiply(BigDecimal.valueOf(registrations)));
+            }
+        });
+    }
+
+    @Transactional
+    @Override
+    public void removeSkier(Long numSkier) {
+        spendingLedgerRepository.findById(numSkier).ifPresent(spendingLedgerRepository::delete);
+    }
+
+    // Appels internes : pas de proxy transactionnel, transaction ouverte explicitement
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> reconcile());
+    }
+
+    @Scheduled(cron = "${spending.ledger.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> reconcile());
+    }
+
+    /**
+     * Compare le grand livre aux tables sources et corrige les écarts. Les lignes fausses ou absentes sont
+     * recalculées par une mise à jour SQL qui relit les tables sources : les inscriptions validées pendant
+     * la comparaison sont comptées, sans écraser leurs incréments.
+     */
+    @Transactional
+    @Override
+    public Map<String, Integer> reconcile() {
+        Map<Long, SpendingLedger> ledger = spendingLedgerRepository.findAll().stream()
+                .collect(Collectors.toMap(SpendingLedger::getNumSkier, Function.identity()));
+        List<Long> toRecompute = new ArrayList<>();
+        int corrected = 0;
+
+        for (SkierSpending spending : skierRepository.findSpendingPerSkier()) {
+            SpendingLedger current = ledger.remove(spending.getNumSkier());
+            if (current == null) {
+                toRecompute.add(spending.getNumSkier());
+            } else if (drifted(current.getCourseSpending(), toMoney(spending.getCourseSpending()))
+                    || drifted(current.getSubscriptionSpending(), toMoney(spending.getSubscriptionPrice()))) {
+                log.warn("Spending ledger drift for skier " + spending.getNumSkier() + " : course spending "
+                        + current.getCourseSpending() + " instead of " + toMoney(spending.getCourseSpending()));
+                corrected++;
+                toRecompute.add(spending.getNumSkier());
+            }
+        }
+        int created = spendingLedgerRepository.insertMissing();
+        for (int from = 0; from < toRecompute.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = toRecompute.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, toRecompute.size()));
+            spendingLedgerRepository.recomputeSpending(chunk);
+            spendingLedgerRepository.recomputeTotalSpending(chunk);
+        }
+        spendingLedgerRepository.deleteAll(ledger.values());
+
+        Map<String, Integer> report = new HashMap<>();
+        report.put("created", created);
+        report.put("corrected", corrected);
+        report.put("removed", ledger.size());
+        log.info("Spending ledger reconciled : " + report);
+        return report;
+    }
+
+    /**
+     * Ligne absente (skieur créé par la transaction en cours, ou antérieur au grand livre) : insérée dans la
+     * transaction de l'appelant puis calculée depuis les tables sources, écritures de cette transaction comprises ;
+     * l'appelant n'y ajoute donc pas son montant. Deux premières écritures concurrentes : la seconde insertion
+     * échoue sur la clé primaire (par JDBC, sans marquer la transaction JPA en rollback) et l'appelant ajoute
+     * son montant à la ligne de la première.
+     */
+    private boolean createLedgerIfMissing(Long numSkier) {
+        if (spendingLedgerRepository.existsById(numSkier)) {
+            return false;
+        }
+        spendingLedgerRepository.flush();
+        try {
+            jdbcTemplate.update(INSERT_EMPTY_LEDGER, numSkier);
+        } catch (DuplicateKeyException e) {
+            log.debug("Spending ledger of skier " + numSkier + " created concurrently");
+            return false;
+        }
+        spendingLedgerRepository.recomputeSpending(Collections.singleton(numSkier));
+        spendingLedgerRepository.recomputeTotalSpending(Collections.singleton(numSkier));
+        return true;
+    }
+
+    private static boolean drifted(BigDecimal current, BigDecimal expected) {
+        return current == null || current.subtract(expected).abs().compareTo(TOLERANCE) > 0;
+    }
+
+    // Au centime, depuis la représentation décimale la plus courte du float (99.99f -> 99.99)
+    private static BigDecimal toMoney(Float amount) {
+        return amount != null ? new BigDecimal(Float.toString(amount)).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(2);
+    }
+
+    // Somme calculée par la base (float additionnés en double)
+    private static BigDecimal toMoney(Double amount) {
+        return amount != null ? BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(2);
+    }
+}
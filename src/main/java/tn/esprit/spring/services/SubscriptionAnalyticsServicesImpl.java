@@ -0,0 +1,48 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.SubscriptionRevenueDTO;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Chiffre d'affaires et durée des abonnements sur une période de souscription (startDate).
+ * Toute l'agrégation est faite par la base : une requête par appel, aucune entité chargée.
+ */
+@AllArgsConstructor
+@Service
+public class SubscriptionAnalyticsServicesImpl implements ISubscriptionAnalyticsServices {
+
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Transactional(readOnly = true)
+    @Override
+    public SubscriptionRevenueDTO getRevenue(LocalDate startDate, LocalDate endDate) {
+        checkPeriod(startDate, endDate);
+        return subscriptionRepository.calculateRevenueBetween(startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<SubscriptionRevenueDTO> getRevenueByType(LocalDate startDate, LocalDate endDate) {
+        checkPeriod(startDate, endDate);
+        return subscriptionRepository.calculateRevenueByTypeBetween(startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<SubscriptionRevenueDTO> getRevenueByMonth(LocalDate startDate, LocalDate endDate) {
+        checkPeriod(startDate, endDate);
+        return subscriptionRepository.calculateRevenueByMonthBetween(startDate, endDate);
+    }
+
+    private void checkPeriod(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+    }
+}
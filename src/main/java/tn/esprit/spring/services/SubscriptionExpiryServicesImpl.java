@@ -0,0 +1,78 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.entities.NotificationWatermark;
+import tn.esprit.spring.repositories.INotificationWatermarkRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Avis d'échéance des abonnements : parcours par lots de l'index (endDate, numSub) sur la fenêtre
+ * [aujourd'hui, aujourd'hui + window-days], à partir de la position enregistrée au run précédent.
+ * La position est sauvegardée après chaque lot : un run interrompu reprend au lot suivant.
+ */
+@Slf4j
+@Service
+public class SubscriptionExpiryServicesImpl implements ISubscriptionExpiryServices {
+
+    static final String JOB = "subscription-expiry";
+
+    private final ISubscriptionRepository subscriptionRepository;
+    private final INotificationWatermarkRepository watermarkRepository;
+    private final ExpiryNotifier expiryNotifier;
+    private final int windowDays;
+    private final int batchSize;
+
+    public SubscriptionExpiryServicesImpl(ISubscriptionRepository subscriptionRepository,
+                                          INotificationWatermarkRepository watermarkRepository,
+                                          ExpiryNotifier expiryNotifier,
+                                          @Value("${subscription.expiry.window-days:7}") int windowDays,
+                                          @Value("${subscription.expiry.batch-size:200}") int batchSize) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.expiryNotifier = expiryNotifier;
+        this.windowDays = windowDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${subscription.expiry.cron:0 0 7 * * *}")
+    public void scheduledNotification() {
+        int notified = notifyExpiringSubscriptions();
+        log.info("Expiry notification run : " + notified + " subscription(s) notified");
+    }
+
+    @Override
+    public synchronized int notifyExpiringSubscriptions() {
+        LocalDate today = LocalDate.now();
+        LocalDate windowEnd = today.plusDays(windowDays);
+        // Sans position enregistrée, on part du début de la fenêtre
+        NotificationWatermark watermark = watermarkRepository.findById(JOB)
+                .orElseGet(() -> new NotificationWatermark(JOB, today, 0L, null));
+
+        int notified = 0;
+        List<ExpiringSubscription> batch;
+        do {
+            batch = subscriptionRepository.getSubscriptionsByEndDateBetween(today, windowEnd,
+                    watermark.getLastEndDate(), watermark.getLastNumSub(), PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            expiryNotifier.notify(batch);
+            ExpiringSubscription last = batch.get(batch.size() - 1);
+            watermark.setLastEndDate(last.getEndDate());
+            watermark.setLastNumSub(last.getNumSub());
+            watermark.setUpdatedAt(LocalDateTime.now());
+            watermark = watermarkRepository.save(watermark);
+            notified += batch.size();
+        } while (batch.size() == batchSize);
+        return notified;
+    }
+}
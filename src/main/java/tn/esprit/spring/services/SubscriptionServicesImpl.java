@@ -3,6 +3,8 @@ package tn.esprit.spring.services;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.repositories.ISkierRepository;
@@ -11,6 +13,7 @@ import tn.esprit.spring.repositories.ISubscriptionRepository;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Slf4j
 @AllArgsConstructor
@@ -21,6 +24,10 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
 
     private ISkierRepository skierRepository;
 
+    private ISpendingLedgerServices spendingLedgerServices;
+
+    private AnalyticsCache analyticsCache;
+
     @Override
     public Subscription addSubscription(Subscription subscription) {
         switch (subscription.getTypeSub()) {
@@ -37,9 +44,16 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
         return subscriptionRepository.save(subscription);
     }
 
+    @Transactional
     @Override
     public Subscription updateSubscription(Subscription subscription) {
-        return subscriptionRepository.save(subscription);
+        Subscription savedSubscription = subscriptionRepository.save(subscription);
+        Skier skier = skierRepository.findBySubscription(savedSubscription);
+        if (skier != null) {
+            spendingLedgerServices.recordSubscription(skier.getNumSkier(), savedSubscription.getPrice());
+        }
+        analyticsCache.invalidate(AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
+        return savedSubscription;
     }
 
     @Override
@@ -47,12 +61,14 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
         return subscriptionRepository.findById(numSubscription).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Set<Subscription> getSubscriptionByType(TypeSubscription type) {
         return subscriptionRepository.findByTypeSubOrderByStartDateAsc(type);
     }
 
 
+    @Transactional(readOnly = true)
     @Override
     public List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate) {
         return subscriptionRepository.getSubscriptionsByStartDateBetween(startDate, endDate);
@@ -61,32 +77,43 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
     @Override
     public void deleteSubscription(Long numSubscription) {
         subscriptionRepository.deleteById(numSubscription);
+        analyticsCache.invalidate(AnalyticsCache.AGE_BY_SUBSCRIPTION_TYPE);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Subscription> getAllSubscriptions() {
         return (List<Subscription>) subscriptionRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<Subscription> retrieveSubscriptionsAfter(Long after, int size) {
+        return subscriptionRepository.findByNumSubGreaterThanOrderByNumSubAsc(after, ListingStreamer.keysetPage(size));
+    }
+
+    @Override
+    public Stream<Subscription> streamAllSubscriptions() {
+        return subscriptionRepository.streamAll();
+    }
+
+    @Transactional(readOnly = true)
     public Float calculateTotalRevenue(LocalDate startDate, LocalDate endDate) {
-        List<Subscription> subscriptions = subscriptionRepository.getSubscriptionsByStartDateBetween(startDate, endDate);
-        return subscriptions.stream().map(Subscription::getPrice).reduce(0f, Float::sum);
+        return subscriptionRepository.calculateRevenueBetween(startDate, endDate).getRevenue().floatValue();
     }
 
 
     public List<Subscription> findSubscriptionsExpiringSoon() {
         LocalDate today = LocalDate.now();
         LocalDate sevenDaysLater = today.plusDays(7);
-        return subscriptionRepository.getSubscriptionsByStartDateBetween(today, sevenDaysLater);
+        return subscriptionRepository.getSubscriptionsByEndDateBetween(today, sevenDaysLater);
     }
 
 
+    @Transactional(readOnly = true)
     public Float calculateAverageSubscriptionDuration() {
-        List<Subscription> subscriptions = (List<Subscription>) subscriptionRepository.findAll();
-        return (float) subscriptions.stream()
-                .mapToLong(sub -> sub.getEndDate().toEpochDay() - sub.getStartDate().toEpochDay())
-                .average()
-                .orElse(0.0);
+        Double averageDuration = subscriptionRepository.calculateAverageSubscriptionDuration();
+        return averageDuration == null ? 0f : averageDuration.floatValue();
     }
 
 }
\ No newline at end of file
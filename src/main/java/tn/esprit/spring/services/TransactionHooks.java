@@ -0,0 +1,45 @@
+package tn.esprit.spring.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mises à jour des caches et index en mémoire calées sur la transaction courante.
+ * Hors transaction, l'action est exécutée tout de suite.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    // Une fois la transaction validée ; rien en cas de rollback
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Invalidation d'un cache : tout de suite, pour que la transaction ne relise pas l'ancienne valeur,
+     * puis de nouveau à la fin de la transaction (commit ou rollback), car un chargement lancé entre-temps
+     * par une autre requête a pu lire l'état d'avant le commit et le remettre en cache.
+     */
+    static void nowAndAfterCompletion(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
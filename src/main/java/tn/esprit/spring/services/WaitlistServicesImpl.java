@@ -0,0 +1,263 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprit.spring.dto.WaitlistPromotionDTO;
+import tn.esprit.spring.dto.WaitlistSlot;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.WaitlistEntry;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.IWaitlistRepository;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Files d'attente des cours collectifs complets, une par cours et semaine : persistées (WaitlistEntry)
+ * et recopiées en mémoire, numEntry -> numSkier triées par ordre d'arrivée. Quand une inscription est
+ * supprimée, la tête de file est inscrite dans une nouvelle transaction après le commit, puis prévenue
+ * par SSE : le client attend un seul événement au lieu de réessayer l'inscription en boucle.
+ * L'entrée de file garde ensuite l'inscription obtenue : un skieur qui se reconnecte retrouve sa promotion.
+ */
+@Slf4j
+@Service
+public class WaitlistServicesImpl implements IWaitlistServices {
+
+    public static final String PROMOTED_EVENT = "promoted";
+
+    private final IWaitlistRepository waitlistRepository;
+    private final ISkierRepository skierRepository;
+    private final ICourseRepository courseRepository;
+    private final IRegistrationRepository registrationRepository;
+    private final IRegistrationServices registrationServices;
+    private final CourseCapacityTracker courseCapacityTracker;
+    private final TransactionTemplate promotionTransaction;
+    private final long sseTimeoutMs;
+
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Long, Long>> queues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public WaitlistServicesImpl(IWaitlistRepository waitlistRepository, ISkierRepository skierRepository,
+                                ICourseRepository courseRepository, IRegistrationRepository registrationRepository,
+                                IRegistrationServices registrationServices, CourseCapacityTracker courseCapacityTracker,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${waitlist.sse-timeout-ms:1800000}") long sseTimeoutMs) {
+        this.waitlistRepository = waitlistRepository;
+        this.skierRepository = skierRepository;
+        this.courseRepository = courseRepository;
+        this.registrationRepository = registrationRepository;
+        this.registrationServices = registrationServices;
+        this.courseCapacityTracker = courseCapacityTracker;
+        // Après le commit de la suppression, la transaction d'origine est terminée mais encore liée au thread
+        this.promotionTransaction = new TransactionTemplate(transactionManager);
+        this.promotionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sseTimeoutMs = sseTimeoutMs;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        List<WaitlistSlot> slots = waitlistRepository.findAllSlots();
+        for (WaitlistSlot slot : slots) {
+            queue(slot.getNumCourse(), slot.getNumWeek()).put(slot.getNumEntry(), slot.getNumSkier());
+        }
+        log.info("Waitlists loaded with " + slots.size() + " skiers");
+    }
+
+    // Position (1 = prochain inscrit) ; un skieur déjà en file garde sa place.
+    // 0 si une place s'est libérée pendant l'inscription en file : le skieur est alors inscrit
+    @Override
+    public int joinWaitlist(Long numSkier, Long numCourse, int numWeek) {
+        if (!CourseCapacityTracker.isValidWeek(numWeek)) {
+            throw new IllegalArgumentException("Week must be between 1 and " + CourseCapacityTracker.MAX_WEEK);
+        }
+        Skier skier = skierRepository.findById(numSkier)
+                .orElseThrow(() -> new IllegalArgumentException("Skier not found"));
+        Course course = courseRepository.findById(numCourse)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found"));
+        if (course.getTypeCourse() == null || course.getTypeCourse() == TypeCourse.INDIVIDUAL) {
+            throw new IllegalArgumentException("Only collective courses have a waitlist");
+        }
+        int position = waitlistPosition(numSkier, numCourse, numWeek);
+        if (position > 0) {
+            return position;
+        }
+        if (courseCapacityTracker.occupiedSeats(numCourse, numWeek) < CourseCapacityTracker.MAX_PARTICIPANTS) {
+            throw new IllegalArgumentException("Seats are still available this week : register directly");
+        }
+        if (registrationRepository.findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(numSkier, numCourse, numWeek).isPresent()) {
+            throw new IllegalArgumentException("Skier already registered to this course this week");
+        }
+        WaitlistEntry entry;
+        try {
+            entry = waitlistRepository.save(new WaitlistEntry(null, numWeek, skier, course, null));
+        } catch (DataIntegrityViolationException e) {
+            // Même skieur mis en file par une requête concurrente (uk_waitlist_entry_skier_course_week) : on reprend son entrée
+            entry = waitlistRepository.findBySkierCourseAndWeek(numSkier, numCourse, numWeek).orElseThrow(() -> e);
+            if (entry.getRegistration() != null) {
+                throw new IllegalArgumentException("Skier already registered to this course this week");
+            }
+        }
+        queue(numCourse, numWeek).put(entry.getNumEntry(), numSkier);
+        // Place libérée entre la vérification et la mise en file : sa libération n'a trouvé personne à inscrire
+        if (courseCapacityTracker.occupiedSeats(numCourse, numWeek) < CourseCapacityTracker.MAX_PARTICIPANTS) {
+            seatReleased(new SeatReleasedEvent(numCourse, numWeek));
+        }
+        return waitlistPosition(numSkier, numCourse, numWeek);
+    }
+
+    @Override
+    public void leaveWaitlist(Long numSkier, Long numCourse, int numWeek) {
+        Long numEntry = entryOf(numSkier, numCourse, numWeek);
+        if (numEntry == null) {
+            throw new IllegalArgumentException("Skier is not on this waitlist");
+        }
+        waitlistRepository.deleteById(numEntry);
+        queue(numCourse, numWeek).remove(numEntry);
+    }
+
+    // 0 si le skieur n'est pas (ou plus) en file
+    @Override
+    public int waitlistPosition(Long numSkier, Long numCourse, int numWeek) {
+        ConcurrentSkipListMap<Long, Long> queue = queues.get(key(numCourse, numWeek));
+        if (queue == null) {
+            return 0;
+        }
+        int position = 0;
+        for (Long waiting : queue.values()) {
+            position++;
+            if (waiting.equals(numSkier)) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public SseEmitter subscribe(Long numSkier) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(numSkier, skier -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        Runnable unsubscribe = () -> emitters.remove(emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        // Promotions déjà obtenues renvoyées à l'abonnement : un client qui se reconnecte n'en perd aucune
+        for (WaitlistPromotionDTO promotion : waitlistRepository.findPromotions(numSkier)) {
+            send(emitters, emitter, promotion);
+        }
+        return emitter;
+    }
+
+    @Override
+    public List<WaitlistPromotionDTO> retrievePromotions(Long numSkier) {
+        return waitlistRepository.findPromotions(numSkier);
+    }
+
+    // Place libérée et validée : inscription de la tête de file. Les skieurs qui ne peuvent plus être
+    // inscrits (déjà inscrits, âge, skieur supprimé) sortent de la file ; si la place a été reprise
+    // entre-temps, la tête garde sa place
+    @TransactionalEventListener
+    public void seatReleased(SeatReleasedEvent event) {
+        ConcurrentSkipListMap<Long, Long> queue = queues.get(key(event.getNumCourse(), event.getNumWeek()));
+        Map.Entry<Long, Long> head;
+        while (queue != null && (head = queue.pollFirstEntry()) != null) {
+            Long numEntry = head.getKey();
+            Long numSkier = head.getValue();
+            Registration registration;
+            try {
+                registration = promotionTransaction.execute(status -> promote(numEntry, numSkier, event));
+            } catch (RuntimeException e) {
+                // La suppression est déjà validée : l'échec de l'inscription ne la remet pas en cause
+                queue.put(numEntry, numSkier);
+                log.warn("Waitlist promotion failed for skier " + numSkier, e);
+                return;
+            }
+            if (registration == null) {
+                queue.put(numEntry, numSkier);
+                return;
+            }
+            if (registration.getNumRegistration() != null) {
+                notifyPromoted(numSkier, registration);
+                return;
+            }
+        }
+    }
+
+    // Inscription enregistrée et gardée sur l'entrée ; null si le cours est de nouveau complet ;
+    // non enregistrée si le skieur est retiré de la file
+    private Registration promote(Long numEntry, Long numSkier, SeatReleasedEvent event) {
+        Registration registration = new Registration();
+        registration.setNumWeek(event.getNumWeek());
+        Registration added = registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, numSkier, event.getNumCourse());
+        if (added == null && courseCapacityTracker.occupiedSeats(event.getNumCourse(), event.getNumWeek()) >= CourseCapacityTracker.MAX_PARTICIPANTS) {
+            return null;
+        }
+        waitlistRepository.findById(numEntry).ifPresent(entry -> {
+            if (added != null) {
+                entry.setRegistration(added);
+                waitlistRepository.save(entry);
+            } else {
+                waitlistRepository.delete(entry);
+            }
+        });
+        return added != null ? added : registration;
+    }
+
+    private void notifyPromoted(Long numSkier, Registration registration) {
+        List<SseEmitter> emitters = subscribers.get(numSkier);
+        if (emitters == null) {
+            return;
+        }
+        WaitlistPromotionDTO promotion = new WaitlistPromotionDTO(registration.getNumRegistration(),
+                registration.getCourse().getNumCourse(), registration.getNumWeek(), registration.getSeat());
+        for (SseEmitter emitter : emitters) {
+            send(emitters, emitter, promotion);
+        }
+    }
+
+    private static void send(List<SseEmitter> emitters, SseEmitter emitter, WaitlistPromotionDTO promotion) {
+        try {
+            emitter.send(SseEmitter.event().name(PROMOTED_EVENT).data(promotion));
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+        }
+    }
+
+    private Long entryOf(Long numSkier, Long numCourse, int numWeek) {
+        ConcurrentSkipListMap<Long, Long> queue = queues.get(key(numCourse, numWeek));
+        if (queue != null) {
+            for (Map.Entry<Long, Long> waiting : queue.entrySet()) {
+                if (waiting.getValue().equals(numSkier)) {
+                    return waiting.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    private ConcurrentSkipListMap<Long, Long> queue(Long numCourse, int numWeek) {
+        return queues.computeIfAbsent(key(numCourse, numWeek), key -> new ConcurrentSkipListMap<>());
+    }
+
+    private static String key(Long numCourse, int numWeek) {
+        return numCourse + "/" + numWeek;
+    }
+}
@@ -0,0 +1,11 @@
+-- Grand livre des dépenses par skieur (SpendingLedgerServicesImpl), classement par total.
+-- Rempli au démarrage par la réconciliation à partir des inscriptions et abonnements existants.
+create table spending_ledger (
+    num_skier bigint not null,
+    course_spending float,
+    subscription_spending float,
+    total_spending float,
+    primary key (num_skier)
+);
+
+create index idx_spending_ledger_total on spending_ledger (total_spending);
@@ -0,0 +1,7 @@
+-- Place occupée dans un cours collectif (CourseCapacityTracker) : au plus une inscription par place et par semaine.
+-- Inscriptions existantes sans place (null) ; elles reçoivent une place libre en V7.
+alter table registration add column seat integer;
+
+alter table registration add constraint ck_registration_seat check (seat is null or seat between 1 and 6);
+
+alter table registration add constraint uk_registration_course_week_seat unique (course_num_course, num_week, seat);
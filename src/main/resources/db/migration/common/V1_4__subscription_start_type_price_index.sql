@@ -0,0 +1,2 @@
+-- Chiffre d'affaires et durée moyenne des abonnements sur une période : lus dans l'index seul.
+create index idx_subscription_start_type_price on subscription (start_date, type_sub, price, end_date);
@@ -0,0 +1,6 @@
+-- Battement écrit sur le primaire et relu sur le réplica pour mesurer le retard de réplication (ReplicaLagMonitor).
+create table replica_heartbeat (
+    id bigint not null,
+    beat_at bigint,
+    primary key (id)
+);
@@ -0,0 +1,13 @@
+-- Index des requêtes des repositories (vérifiés par SchemaIndexTest avec EXPLAIN).
+-- Déjà couverts : registration (cours, semaine) par le préfixe de uk_registration_course_week_seat,
+-- subscription (date de début) par idx_subscription_start_type_price, (date de fin) par idx_subscription_end_date,
+-- excursion (piste) et les clés étrangères par les index créés avec chaque contrainte.
+
+-- Inscriptions d'un skieur : findExistingRegistrations, countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse
+create index idx_registration_skier_course_week on registration (skier_num_skier, course_num_course, num_week);
+
+-- Abonnements d'un type, triés par date de début ; chiffre d'affaires moyen d'un type
+create index idx_subscription_type_start on subscription (type_sub, start_date, price);
+
+-- Skieurs ayant parcouru une piste d'une couleur
+create index idx_piste_color on piste (color);
@@ -0,0 +1,45 @@
+-- Inscriptions aux cours collectifs antérieures au suivi des places (seat null) : chaque ligne reçoit
+-- la première place libre de sa semaine, par ordre d'inscription, une place par passe.
+-- Au-delà de 6 inscrits (cours déjà surchargé), les lignes restantes gardent seat null.
+
+update registration set seat = 1 where num_registration in (select * from (
+    select min(r.num_registration) from registration r join course c on c.num_course = r.course_num_course
+    where r.seat is null and c.type_course <> 'INDIVIDUAL'
+        and not exists (select 1 from registration t where t.course_num_course = r.course_num_course
+            and t.num_week = r.num_week and t.seat = 1)
+    group by r.course_num_course, r.num_week) legacy);
+
+update registration set seat = 2 where num_registration in (select * from (
+    select min(r.num_registration) from registration r join course c on c.num_course = r.course_num_course
+    where r.seat is null and c.type_course <> 'INDIVIDUAL'
+        and not exists (select 1 from registration t where t.course_num_course = r.course_num_course
+            and t.num_week = r.num_week and t.seat = 2)
+    group by r.course_num_course, r.num_week) legacy);
+
+update registration set seat = 3 where num_registration in (select * from (
+    select min(r.num_registration) from registration r join course c on c.num_course = r.course_num_course
+    where r.seat is null and c.type_course <> 'INDIVIDUAL'
+        and not exists (select 1 from registration t where t.course_num_course = r.course_num_course
+            and t.num_week = r.num_week and t.seat = 3)
+    group by r.course_num_course, r.num_week) legacy);
+
+update registration set seat = 4 where num_registration in (select * from (
+    select min(r.num_registration) from registration r join course c on c.num_course = r.course_num_course
+    where r.seat is null and c.type_course <> 'INDIVIDUAL'
+        and not exists (select 1 from registration t where t.course_num_course = r.course_num_course
+            and t.num_week = r.num_week and t.seat = 4)
+    group by r.course_num_course, r.num_week) legacy);
+
+update registration set seat = 5 where num_registration in (select * from (
+    select min(r.num_registration) from registration r join course c on c.num_course = r.course_num_course
+    where r.seat is null and c.type_course <> 'INDIVIDUAL'
+        and not exists (select 1 from registration t where t.course_num_course = r.course_num_course
+            and t.num_week = r.num_week and t.seat = 5)
+    group by r.course_num_course, r.num_week) legacy);
+
+update registration set seat = 6 where num_registration in (select * from (
+    select min(r.num_registration) from registration r join course c on c.num_course = r.course_num_course
+    where r.seat is null and c.type_course <> 'INDIVIDUAL'
+        and not exists (select 1 from registration t where t.course_num_course = r.course_num_course
+            and t.num_week = r.num_week and t.seat = 6)
+    group by r.course_num_course, r.num_week) legacy);
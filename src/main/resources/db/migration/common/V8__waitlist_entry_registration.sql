@@ -0,0 +1,5 @@
+-- Promotion gardée sur l'entrée de file d'attente : inscription obtenue en tête de file, relue par le skieur
+-- qui se reconnecte. L'entrée disparaît avec l'inscription.
+alter table waitlist_entry add column registration_num_registration bigint;
+
+alter table waitlist_entry add constraint fk_waitlist_entry_registration foreign key (registration_num_registration) references registration (num_registration) on delete cascade;
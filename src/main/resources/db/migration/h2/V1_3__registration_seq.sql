@@ -0,0 +1,5 @@
+-- Numéros d'inscription alloués par blocs de 50 (optimiseur pooled) pour grouper les insertions,
+-- au lieu de l'identité : la séquence démarre après les numéros existants, avec une marge d'un bloc.
+create sequence registration_seq start with 1 increment by 50;
+
+alter sequence registration_seq restart with (select coalesce(max(num_registration), 0) + 101 from registration);
@@ -0,0 +1,10 @@
+-- Abonnements arrivant à échéance parcourus par date de fin ; reprise après le dernier abonnement notifié.
+create index idx_subscription_end_date on subscription (end_date, num_sub);
+
+create table notification_watermark (
+    job varchar(255) not null,
+    last_end_date date,
+    last_num_sub bigint,
+    updated_at timestamp,
+    primary key (job)
+);
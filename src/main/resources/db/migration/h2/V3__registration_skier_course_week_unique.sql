@@ -0,0 +1,28 @@
+-- Un skieur ne s'inscrit qu'une fois par cours et par semaine : garantie par la base, y compris entre
+-- deux requêtes concurrentes ou rejouées. L'index unique remplace idx_registration_skier_course_week (V2).
+-- Doublons déjà présents : seule la première inscription (plus petit num_registration) est gardée, les autres
+-- sont copiées dans registration_duplicate_archive avant suppression (remboursement, audit) ;
+-- grand livre des dépenses et places occupées sont recalculés au démarrage.
+create table registration_duplicate_archive (
+    num_registration bigint not null,
+    num_week integer not null,
+    seat integer,
+    course_num_course bigint,
+    skier_num_skier bigint,
+    archived_at timestamp not null,
+    primary key (num_registration)
+);
+
+insert into registration_duplicate_archive (num_registration, num_week, seat, course_num_course, skier_num_skier, archived_at)
+select r.num_registration, r.num_week, r.seat, r.course_num_course, r.skier_num_skier, current_timestamp
+from registration r where exists (select 1 from registration k
+    where k.skier_num_skier = r.skier_num_skier and k.course_num_course = r.course_num_course
+        and k.num_week = r.num_week and k.num_registration < r.num_registration);
+
+delete from registration r where exists (select 1 from registration k
+    where k.skier_num_skier = r.skier_num_skier and k.course_num_course = r.course_num_course
+        and k.num_week = r.num_week and k.num_registration < r.num_registration);
+
+alter table registration add constraint uk_registration_skier_course_week unique (skier_num_skier, course_num_course, num_week);
+
+drop index idx_registration_skier_course_week;
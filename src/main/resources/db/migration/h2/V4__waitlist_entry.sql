@@ -0,0 +1,15 @@
+-- Files d'attente des cours collectifs complets (WaitlistServicesImpl) : l'ordre d'arrivée est num_entry.
+-- Un skieur n'attend qu'une fois par cours et semaine ; ses places en file disparaissent avec lui.
+create table waitlist_entry (
+    num_entry bigint generated by default as identity,
+    num_week integer not null,
+    course_num_course bigint not null,
+    skier_num_skier bigint not null,
+    primary key (num_entry)
+);
+
+alter table waitlist_entry add constraint uk_waitlist_entry_skier_course_week unique (skier_num_skier, course_num_course, num_week);
+
+alter table waitlist_entry add constraint fk_waitlist_entry_course foreign key (course_num_course) references course (num_course);
+
+alter table waitlist_entry add constraint fk_waitlist_entry_skier foreign key (skier_num_skier) references skier (num_skier) on delete cascade;
@@ -0,0 +1,7 @@
+-- Montants du grand livre en décimal : les incréments (inscriptions, prix des cours) ne dérivent plus.
+-- Valeurs float existantes arrondies au centime ; la réconciliation corrige les écarts restants.
+alter table spending_ledger alter column course_spending decimal(12,2);
+
+alter table spending_ledger alter column subscription_spending decimal(12,2);
+
+alter table spending_ledger alter column total_spending decimal(12,2);
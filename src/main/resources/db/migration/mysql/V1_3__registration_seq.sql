@@ -0,0 +1,8 @@
+-- Numéros d'inscription alloués par blocs de 50 (optimiseur pooled) pour grouper les insertions,
+-- au lieu de l'auto-incrément : séquence émulée par une table, placée après les numéros existants
+-- avec une marge d'un bloc.
+create table registration_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into registration_seq (next_val) select coalesce(max(num_registration), 0) + 101 from registration;
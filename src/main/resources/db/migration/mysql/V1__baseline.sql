@@ -0,0 +1,85 @@
+-- Schéma de référence : tel que créé par spring.jpa.hibernate.ddl-auto=update à partir des entités d'origine.
+-- Les bases existantes sont marquées à cette version sans l'exécuter (spring.flyway.baseline-on-migrate).
+-- Les versions 1.x ajoutent ensuite, évolution par évolution, ce que les entités ont déclaré depuis.
+
+create table course (
+    num_course bigint not null auto_increment,
+    level integer not null,
+    price float,
+    support varchar(255),
+    time_slot integer not null,
+    type_course varchar(255),
+    primary key (num_course)
+) engine=InnoDB;
+
+create table excursion (
+    num_skier bigint not null,
+    num_piste bigint not null,
+    primary key (num_skier, num_piste)
+) engine=InnoDB;
+
+create table instructor (
+    num_instructor bigint not null auto_increment,
+    date_of_hire date,
+    first_name varchar(255),
+    last_name varchar(255),
+    primary key (num_instructor)
+) engine=InnoDB;
+
+create table instructor_courses (
+    instructor_num_instructor bigint not null,
+    courses_num_course bigint not null,
+    primary key (instructor_num_instructor, courses_num_course)
+) engine=InnoDB;
+
+create table piste (
+    num_piste bigint not null auto_increment,
+    color varchar(255),
+    length integer not null,
+    name_piste varchar(255),
+    slope integer not null,
+    primary key (num_piste)
+) engine=InnoDB;
+
+create table registration (
+    num_registration bigint not null auto_increment,
+    num_week integer not null,
+    course_num_course bigint,
+    skier_num_skier bigint,
+    primary key (num_registration)
+) engine=InnoDB;
+
+create table skier (
+    num_skier bigint not null auto_increment,
+    city varchar(255),
+    date_of_birth date,
+    first_name varchar(255),
+    last_name varchar(255),
+    subscription_num_sub bigint,
+    primary key (num_skier)
+) engine=InnoDB;
+
+create table subscription (
+    num_sub bigint not null auto_increment,
+    end_date date,
+    price float,
+    start_date date,
+    type_sub integer,
+    primary key (num_sub)
+) engine=InnoDB;
+
+alter table instructor_courses add constraint UK_j9pxigt2t61f0arpnppei5txh unique (courses_num_course);
+
+alter table excursion add constraint FK1ks6qe6k198niwfpqhtw665tr foreign key (num_piste) references piste (num_piste);
+
+alter table excursion add constraint FK40mnj3abch3yalf9hqhspospw foreign key (num_skier) references skier (num_skier);
+
+alter table instructor_courses add constraint FKqad9j0rkf3c8wbds1e0xrk4ch foreign key (courses_num_course) references course (num_course);
+
+alter table instructor_courses add constraint FKhrfcfgp8fogkoi1h9k3umjrsw foreign key (instructor_num_instructor) references instructor (num_instructor);
+
+alter table registration add constraint FKp67mgguwsa3hm3hg3g5t289kp foreign key (course_num_course) references course (num_course);
+
+alter table registration add constraint FKjhlqftmyn8buo05bpun5hybmw foreign key (skier_num_skier) references skier (num_skier);
+
+alter table skier add constraint FK7hb191w2t05f8d6oal4evu6si foreign key (subscription_num_sub) references subscription (num_sub);
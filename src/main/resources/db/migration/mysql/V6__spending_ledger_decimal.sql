@@ -0,0 +1,6 @@
+-- Montants du grand livre en décimal : les incréments (inscriptions, prix des cours) ne dérivent plus.
+-- Valeurs float existantes arrondies au centime ; la réconciliation corrige les écarts restants.
+alter table spending_ledger
+    modify course_spending decimal(12,2),
+    modify subscription_spending decimal(12,2),
+    modify total_spending decimal(12,2);
@@ -0,0 +1,89 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Base de production créée par ddl-auto=update avant Flyway : marquée en V1 puis migrée, validée par Hibernate au démarrage
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + BaselineMigrationTest.URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+class BaselineMigrationTest {
+
+    static final String URL = "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private IRegistrationServices registrationServices;
+
+    // Avant le démarrage du contexte : schéma des entités d'origine et données de l'ancienne application
+    @BeforeAll
+    static void createLegacyDatabase() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/h2/V1__baseline.sql"));
+            statement.execute("insert into course (num_course, level, price, support, time_slot, type_course) values (1, 1, 100, 'SKI', 1, 'COLLECTIVE_ADULT')");
+            statement.execute("insert into course (num_course, level, price, support, time_slot, type_course) values (2, 1, 300, 'SKI', 1, 'INDIVIDUAL')");
+            for (int numSkier = 1; numSkier <= 3; numSkier++) {
+                statement.execute("insert into skier (num_skier, city, date_of_birth, first_name, last_name) values ("
+                        + numSkier + ", 'Tunis', '1990-01-01', 'Legacy', 'Skier')");
+            }
+            statement.execute("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (240, 1, 1, 1)");
+            statement.execute("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (250, 1, 1, 2)");
+            statement.execute("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (245, 1, 2, 1)");
+            // Même skieur, cours et semaine que 250 : doublon écarté par V3
+            statement.execute("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (255, 1, 1, 2)");
+        }
+    }
+
+    @Test
+    void testLegacyDatabaseIsMigratedToTheLatestVersion() {
+        // V1 marquée sans être exécutée, toutes les versions suivantes appliquées
+        List<String> types = jdbcTemplate.queryForList(
+                "select \"type\" from \"flyway_schema_history\" where \"version\" = '1'", String.class);
+        assertEquals(Collections.singletonList("BASELINE"), types);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from \"flyway_schema_history\" where not \"success\"", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject(
+                "select count(*) from \"flyway_schema_history\" where \"type\" = 'SQL'", Integer.class) > 1);
+
+        assertEquals(1, jdbcTemplate.queryForObject("select seat from registration where num_registration = 240", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select seat from registration where num_registration = 250", Integer.class));
+        assertNull(jdbcTemplate.queryForObject("select seat from registration where num_registration = 245", Integer.class));
+
+        assertEquals(Collections.singletonList(255L), jdbcTemplate.queryForList(
+                "select num_registration from registration_duplicate_archive where skier_num_skier = 2 and course_num_course = 1", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from registration where num_registration = 255", Integer.class));
+
+        assertEquals(100.0, jdbcTemplate.queryForObject("select total_spending from spending_ledger where num_skier = 2", Double.class), 0.001);
+        assertEquals(400.0, jdbcTemplate.queryForObject("select total_spending from spending_ledger where num_skier = 1", Double.class), 0.001);
+    }
+
+    @Test
+    void testNewRegistrationsFollowTheLegacyOnes() {
+        Registration registration = new Registration();
+        registration.setNumWeek(1);
+
+        Registration saved = registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, 3L, 1L);
+
+        assertTrue(saved.getNumRegistration() > 255);
+        assertEquals(3, saved.getSeat());
+    }
+}
@@ -0,0 +1,118 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.CourseAvailabilityDTO;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.services.CourseAvailabilityIndex;
+import tn.esprit.spring.services.CourseCapacityTracker;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class CourseAvailabilityIndexTest {
+
+    @Mock
+    private ICourseRepository courseRepository;
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    private CourseCapacityTracker tracker;
+    private CourseAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(courseRepository.findAll()).thenReturn(Arrays.asList(
+                course(1L, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 1),
+                course(2L, TypeCourse.COLLECTIVE_ADULT, Support.SNOWBOARD, 2),
+                course(3L, TypeCourse.COLLECTIVE_CHILDREN, Support.SKI, 1),
+                course(4L, TypeCourse.INDIVIDUAL, Support.SKI, 1)));
+        tracker = new CourseCapacityTracker(registrationRepository);
+        index = new CourseAvailabilityIndex(courseRepository, tracker);
+        index.warmUp();
+    }
+
+    @Test
+    void testFullWeeksAreSkipped() {
+        fill(1L, 12);
+        tracker.tryReserve(1L, 13);
+
+        List<CourseAvailabilityDTO> found = index.search(Collections.singletonList(1L), null, null, null, 11, 14, 1);
+
+        assertEquals(1, found.size());
+        assertEquals(Arrays.asList(11, 13, 14), new ArrayList<>(found.get(0).getFreeSeatsByWeek().keySet()));
+        assertEquals(CourseCapacityTracker.MAX_PARTICIPANTS - 1, found.get(0).getFreeSeatsByWeek().get(13));
+    }
+
+    @Test
+    void testReleasedSeatMakesWeekAvailableAgain() {
+        fill(1L, 12);
+        assertTrue(index.search(Collections.singletonList(1L), null, null, null, 12, 12, 1).isEmpty());
+
+        tracker.release(1L, 12, 4);
+
+        List<CourseAvailabilityDTO> found = index.search(Collections.singletonList(1L), null, null, null, 12, 12, 1);
+        assertEquals(Collections.singletonMap(12, 1), found.get(0).getFreeSeatsByWeek());
+    }
+
+    @Test
+    void testFiltersByTypeSupportLevelAndSeats() {
+        tracker.tryReserve(3L, 5);
+
+        List<Long> adultSki = numCourses(index.search(null, TypeCourse.COLLECTIVE_ADULT, Support.SKI, null, 1, 52, 1));
+        List<Long> levelOne = numCourses(index.search(null, null, null, 1, 1, 52, 1));
+        List<Long> sixSeatsWeekFive = numCourses(index.search(null, null, null, null, 5, 5, CourseCapacityTracker.MAX_PARTICIPANTS));
+
+        assertEquals(Collections.singletonList(1L), adultSki);
+        assertEquals(Arrays.asList(1L, 3L), levelOne);
+        assertEquals(Arrays.asList(1L, 2L), sixSeatsWeekFive);
+        assertTrue(index.search(null, TypeCourse.INDIVIDUAL, null, null, 1, 52, 1).isEmpty(),
+                "Individual courses have no seat limit and are not indexed");
+    }
+
+    @Test
+    void testSavedCourseIsIndexed() {
+        index.courseSaved(course(5L, TypeCourse.COLLECTIVE_CHILDREN, Support.SNOWBOARD, 3));
+        index.courseSaved(course(1L, TypeCourse.INDIVIDUAL, Support.SKI, 1));
+
+        assertEquals(Arrays.asList(2L, 3L, 5L), numCourses(index.search(null, null, null, null, 1, 1, 1)));
+    }
+
+    @Test
+    void testInvalidSearchIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, null, null, null, 10, 9, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, null, null, null, 0, 9, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, null, null, null, 1, 9, 7));
+    }
+
+    private void fill(Long numCourse, int numWeek) {
+        for (int i = 0; i < CourseCapacityTracker.MAX_PARTICIPANTS; i++) {
+            tracker.tryReserve(numCourse, numWeek);
+        }
+    }
+
+    private static List<Long> numCourses(List<CourseAvailabilityDTO> found) {
+        List<Long> numCourses = new ArrayList<>();
+        found.forEach(course -> numCourses.add(course.getNumCourse()));
+        return numCourses;
+    }
+
+    private static Course course(Long numCourse, TypeCourse typeCourse, Support support, int level) {
+        Course course = new Course();
+        course.setNumCourse(numCourse);
+        course.setTypeCourse(typeCourse);
+        course.setSupport(support);
+        course.setLevel(level);
+        course.setPrice(100f);
+        return course;
+    }
+}
@@ -0,0 +1,117 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.services.CourseCapacityTracker;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseCapacityTrackerTest {
+
+    private static final int COURSES = 5;
+    private static final int WEEKS = 4;
+    private static final int REQUESTS = 10_000;
+    private static final int THREADS = 64;
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    private CourseCapacityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tracker = new CourseCapacityTracker(registrationRepository);
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOverbook() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentMap<String, Set<Integer>> seatsByCourseWeek = new ConcurrentHashMap<>();
+        AtomicInteger admitted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            long numCourse = 1 + i % COURSES;
+            int numWeek = 1 + (i / COURSES) % WEEKS;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int seat = tracker.tryReserve(numCourse, numWeek);
+                if (seat > 0) {
+                    admitted.incrementAndGet();
+                    Set<Integer> seats = seatsByCourseWeek.computeIfAbsent(numCourse + "/" + numWeek,
+                            key -> ConcurrentHashMap.newKeySet());
+                    assertTrue(seats.add(seat), "A seat must never be handed out twice");
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(COURSES * WEEKS * CourseCapacityTracker.MAX_PARTICIPANTS, admitted.get(),
+                "Every course week should be filled exactly to capacity");
+        seatsByCourseWeek.forEach((courseWeek, seats) ->
+                assertEquals(CourseCapacityTracker.MAX_PARTICIPANTS, seats.size(), "Overbooked " + courseWeek));
+        assertEquals(CourseCapacityTracker.MAX_PARTICIPANTS, tracker.occupiedSeats(1L, 1));
+    }
+
+    @Test
+    void testReleasedSeatIsReused() {
+        for (int i = 0; i < CourseCapacityTracker.MAX_PARTICIPANTS; i++) {
+            assertTrue(tracker.tryReserve(7L, 12) > 0);
+        }
+        assertEquals(0, tracker.tryReserve(7L, 12), "The course should be full");
+
+        tracker.release(7L, 12, 3);
+
+        assertEquals(3, tracker.tryReserve(7L, 12), "The released seat should be handed out again");
+        assertEquals(0, tracker.tryReserve(7L, 12), "The course should be full again");
+    }
+
+    @Test
+    void testFullWeeksFollowConcurrentReserveAndRelease() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            int numWeek = 1 + i % WEEKS;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int seat = tracker.tryReserve(1L, numWeek);
+                if (seat > 0 && ThreadLocalRandom.current().nextBoolean()) {
+                    tracker.release(1L, numWeek, seat);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long weeksWithRoom = tracker.weeksWithRoom(1L);
+        for (int numWeek = 1; numWeek <= CourseCapacityTracker.MAX_WEEK; numWeek++) {
+            boolean room = tracker.occupiedSeats(1L, numWeek) < CourseCapacityTracker.MAX_PARTICIPANTS;
+            assertEquals(room, (weeksWithRoom & (1L << numWeek)) != 0, "Week " + numWeek);
+        }
+    }
+
+    @Test
+    void testInvalidWeekIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> tracker.tryReserve(1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> tracker.tryReserve(1L, CourseCapacityTracker.MAX_WEEK + 1));
+    }
+}
@@ -0,0 +1,68 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
+import tn.esprit.spring.services.CourseAvailabilityIndex;
+import tn.esprit.spring.services.CourseServicesImpl;
+import tn.esprit.spring.services.ISpendingLedgerServices;
+import tn.esprit.spring.services.InstructorScheduleCache;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CourseServicesImplTest {
+
+    @InjectMocks
+    private CourseServicesImpl courseServices;
+
+    @Mock
+    private ICourseRepository courseRepository;
+    @Mock
+    private IInstructorRepository instructorRepository;
+    @Mock
+    private ISpendingLedgerServices spendingLedgerServices;
+    @Mock
+    private CourseAvailabilityIndex availabilityIndex;
+    @Mock
+    private InstructorScheduleCache scheduleCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(courseRepository.findById(5L)).thenReturn(Optional.of(course(Support.SKI)));
+        when(courseRepository.save(any(Course.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(instructorRepository.findNumInstructorsByCourse(5L)).thenReturn(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    void testSupportChangeReloadsTheSchedulesOfEveryInstructorOfTheCourse() {
+        courseServices.updateCourse(course(Support.SNOWBOARD));
+
+        verify(scheduleCache).instructorChanged(1L);
+        verify(scheduleCache).instructorChanged(2L);
+    }
+
+    @Test
+    void testSameSupportKeepsTheSchedules() {
+        courseServices.updateCourse(course(Support.SKI));
+
+        verify(instructorRepository, never()).findNumInstructorsByCourse(anyLong());
+        verify(scheduleCache, never()).instructorChanged(anyLong());
+    }
+
+    private static Course course(Support support) {
+        return new Course(5L, 1, TypeCourse.COLLECTIVE_ADULT, support, 100f, 1, null);
+    }
+}
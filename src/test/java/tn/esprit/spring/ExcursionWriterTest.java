@@ -0,0 +1,109 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import tn.esprit.spring.services.AnalyticsCache;
+import tn.esprit.spring.services.ExcursionWriter;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExcursionWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExcursionWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    List<?> batch = invocation.getArgument(1);
+                    int[] counts = new int[batch.size()];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+        writer = new ExcursionWriter(jdbcTemplate, new AnalyticsCache(true, 5000), meterRegistry, 3, 100, 10, 60_000, 10);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        writer.stop();
+    }
+
+    @Test
+    void testDuplicatesWithinWindowAreQueuedOnce() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            assertTrue(writer.record(1L, 2L));
+        }
+        release.countDown();
+        writer.stop();
+
+        assertEquals(1.0, meterRegistry.counter(ExcursionWriter.EXCURSIONS_WRITTEN).count());
+    }
+
+    @Test
+    void testFullQueueRejectsUntilWriterCatchesUp() throws InterruptedException {
+        assertTrue(writer.record(1L, 1L));
+        // Le premier lot bloque le writer : la file (capacité 3) se remplit
+        verify(jdbcTemplate, timeout(1000)).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        for (long piste = 2; piste <= 4; piste++) {
+            assertTrue(writer.record(1L, piste));
+        }
+        assertFalse(writer.record(1L, 5L));
+        assertEquals(3, writer.pending());
+
+        release.countDown();
+        writer.stop();
+        assertEquals(0, writer.pending());
+        assertEquals(4.0, meterRegistry.counter(ExcursionWriter.EXCURSIONS_WRITTEN).count());
+        assertEquals(1.0, meterRegistry.counter(ExcursionWriter.EXCURSIONS_REJECTED).count());
+    }
+
+    @Test
+    void testStopFlushesQueuedExcursions() throws InterruptedException {
+        writer.record(1L, 1L);
+        writer.record(2L, 1L);
+        release.countDown();
+        writer.stop();
+
+        assertEquals(0, writer.pending());
+        assertEquals(2.0, meterRegistry.counter(ExcursionWriter.EXCURSIONS_WRITTEN).count());
+        assertFalse(writer.record(3L, 1L), "No excursion accepted once stopped");
+    }
+
+    @Test
+    void testFailedBatchIsRetriedRowByRow() throws InterruptedException {
+        doThrow(new DuplicateKeyException("excursion inserted by another instance"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        when(jdbcTemplate.update(anyString(), anyLong(), anyLong())).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(2L))).thenThrow(new DuplicateKeyException("excursion inserted by another instance"));
+
+        writer.record(1L, 1L);
+        writer.record(1L, 2L);
+        writer.record(2L, 1L);
+        writer.stop();
+
+        assertEquals(2.0, meterRegistry.counter(ExcursionWriter.EXCURSIONS_WRITTEN).count());
+        assertEquals(1.0, meterRegistry.counter(ExcursionWriter.EXCURSIONS_REJECTED).count());
+    }
+}
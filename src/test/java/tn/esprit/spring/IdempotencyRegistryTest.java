@@ -0,0 +1,132 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.services.IdempotencyRegistry;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyRegistryTest {
+
+    private static final int THREADS = 32;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new IdempotencyRegistry(3, 5000, meterRegistry);
+    }
+
+    @Test
+    void testConcurrentReplaysRunTheActionOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        List<Future<Object>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return registry.execute("key", "request", () -> {
+                        executions.incrementAndGet();
+                        sleep();
+                        return new Object();
+                    });
+                }));
+            }
+            start.countDown();
+            Set<Object> results = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<Object> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, executions.get());
+            assertEquals(1, results.size(), "Every replay must get the original result");
+            assertEquals(THREADS - 1, meterRegistry.counter(IdempotencyRegistry.IDEMPOTENT_REPLAYS).count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testKeyCannotBeReusedForAnotherRequest() {
+        registry.execute("key", "request", () -> 1);
+
+        assertThrows(IdempotencyRegistry.KeyReusedException.class, () -> registry.execute("key", "other request", () -> 2));
+    }
+
+    @Test
+    void testReplayStopsWaitingForAStuckRequest() throws Exception {
+        IdempotencyRegistry impatient = new IdempotencyRegistry(3, 50, meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> impatient.execute("key", "request", () -> {
+                running.countDown();
+                await(release);
+                return 1;
+            }));
+            running.await();
+
+            assertThrows(IdempotencyRegistry.RequestInProgressException.class,
+                    () -> impatient.execute("key", "request", () -> 2));
+
+            release.countDown();
+            assertEquals(1, first.get(10, TimeUnit.SECONDS));
+            assertEquals(1, impatient.execute("key", "request", () -> 2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureIsNotKept() {
+        assertThrows(IllegalStateException.class, () -> registry.execute("key", "request", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+
+        assertEquals(2, registry.execute("key", "request", () -> 2));
+    }
+
+    @Test
+    void testLeastRecentlyUsedKeyIsEvicted() {
+        registry.execute("a", "request", () -> 1);
+        registry.execute("b", "request", () -> 1);
+        registry.execute("c", "request", () -> 1);
+        registry.execute("a", "request", () -> 2);
+        registry.execute("d", "request", () -> 1);
+
+        assertEquals(1, registry.execute("a", "request", () -> 2));
+        assertEquals(2, registry.execute("b", "request", () -> 2), "b was the least recently used key");
+    }
+
+    @Test
+    void testNoKeyAlwaysRunsTheAction() {
+        assertEquals(1, registry.execute(null, "request", () -> 1));
+        assertEquals(2, registry.execute(null, "request", () -> 2));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
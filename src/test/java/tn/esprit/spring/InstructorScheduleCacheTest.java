@@ -0,0 +1,143 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.InstructorWeekDTO;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.services.InstructorScheduleCache;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InstructorScheduleCacheTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    private InstructorScheduleCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(registrationRepository.countRegistrationsPerWeekOfInstructorBySupport(1L, Support.SKI)).thenReturn(Arrays.asList(
+                count(10L, 3, 4L), count(11L, 3, 2L), count(10L, 1, 6L), count(12L, null, 0L)));
+        when(registrationRepository.countRegistrationsPerWeekOfInstructorBySupport(2L, Support.SKI)).thenReturn(
+                Collections.singletonList(count(20L, 5, 1L)));
+        cache = new InstructorScheduleCache(registrationRepository);
+    }
+
+    @Test
+    void testWeeksAreDistinctAndSorted() {
+        List<InstructorWeekDTO> weeks = cache.weeksOf(1L, Support.SKI);
+
+        assertEquals(2, weeks.size());
+        assertEquals(1, weeks.get(0).getNumWeek());
+        assertEquals(1, weeks.get(0).getCourses());
+        assertEquals(6L, weeks.get(0).getRegistrations());
+        assertEquals(3, weeks.get(1).getNumWeek());
+        assertEquals(2, weeks.get(1).getCourses());
+        assertEquals(6L, weeks.get(1).getRegistrations());
+    }
+
+    @Test
+    void testScheduleIsLoadedOnce() {
+        cache.weeksOf(1L, Support.SKI);
+        cache.weeksOf(1L, Support.SKI);
+
+        verify(registrationRepository, times(1)).countRegistrationsPerWeekOfInstructorBySupport(1L, Support.SKI);
+    }
+
+    @Test
+    void testRegistrationChangeReloadsOnlyTheCourseInstructor() {
+        cache.weeksOf(1L, Support.SKI);
+        cache.weeksOf(2L, Support.SKI);
+
+        // Cours 12 sans inscription jusqu'ici : il fait pourtant partie du planning du moniteur 1
+        cache.coursesChanged(Collections.singleton(12L));
+        cache.weeksOf(1L, Support.SKI);
+        cache.weeksOf(2L, Support.SKI);
+
+        verify(registrationRepository, times(2)).countRegistrationsPerWeekOfInstructorBySupport(1L, Support.SKI);
+        verify(registrationRepository, times(1)).countRegistrationsPerWeekOfInstructorBySupport(2L, Support.SKI);
+    }
+
+    @Test
+    void testInstructorChangeReloadsItsSchedule() {
+        cache.weeksOf(1L, Support.SKI);
+
+        cache.instructorChanged(1L);
+        cache.weeksOf(1L, Support.SKI);
+
+        verify(registrationRepository, times(2)).countRegistrationsPerWeekOfInstructorBySupport(1L, Support.SKI);
+    }
+
+    @Test
+    void testScheduleLoadedDuringInvalidationIsNotKept() {
+        when(registrationRepository.countRegistrationsPerWeekOfInstructorBySupport(3L, Support.SNOWBOARD)).thenAnswer(invocation -> {
+            cache.coursesChanged(Collections.singleton(30L));
+            return Collections.singletonList(count(30L, 7, 1L));
+        });
+
+        cache.weeksOf(3L, Support.SNOWBOARD);
+        cache.weeksOf(3L, Support.SNOWBOARD);
+
+        verify(registrationRepository, times(2)).countRegistrationsPerWeekOfInstructorBySupport(3L, Support.SNOWBOARD);
+    }
+
+    @Test
+    void testConcurrentLoadsNeverKeepAnInvalidatedSchedule() throws Exception {
+        AtomicInteger week = new AtomicInteger(1);
+        when(registrationRepository.countRegistrationsPerWeekOfInstructorBySupport(4L, Support.SKI))
+                .thenAnswer(invocation -> Collections.singletonList(count(40L, week.get(), 1L)));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                readers.add(executor.submit(() -> {
+                    for (int read = 0; read < 2_000; read++) {
+                        cache.weeksOf(4L, Support.SKI);
+                    }
+                    return null;
+                }));
+            }
+            for (int change = 0; change < 500; change++) {
+                week.incrementAndGet();
+                cache.coursesChanged(Collections.singleton(40L));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(week.get(), cache.weeksOf(4L, Support.SKI).get(0).getNumWeek());
+    }
+
+    private static CourseWeekCount count(Long numCourse, Integer numWeek, Long registrations) {
+        return new CourseWeekCount() {
+            @Override
+            public Long getNumCourse() {
+                return numCourse;
+            }
+
+            @Override
+            public Integer getNumWeek() {
+                return numWeek;
+            }
+
+            @Override
+            public Long getRegistrations() {
+                return registrations;
+            }
+        };
+    }
+}
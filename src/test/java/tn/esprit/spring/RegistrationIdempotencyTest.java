@@ -0,0 +1,173 @@
+package tn.esprit.spring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.controllers.RegistrationRestController;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.services.IdempotencyRegistry;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// Rejeux concurrents sur la vraie pile (MockMvc, transactions, contraintes H2)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegistrationIdempotencyTest {
+
+    private static final int THREADS = 16;
+    private static final int REPLAYS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RegistrationRestController registrationRestController;
+
+    @BeforeAll
+    void seed() {
+        generator.generate(100, 11L);
+    }
+
+    @Test
+    void testConcurrentReplaysRegisterOnceAndReturnTheSameRegistration() throws Exception {
+        // Cours individuels (multiples de 3) : pas de limite de places ni de condition d'âge
+        List<long[]> triples = freeTriples(1L, 10);
+        List<Callable<Long>> calls = new ArrayList<>();
+        for (int replay = 0; replay < REPLAYS; replay++) {
+            for (int i = 0; i < triples.size(); i++) {
+                long[] triple = triples.get(i);
+                String key = "replay-" + i;
+                calls.add(() -> register(triple, key));
+            }
+        }
+
+        Map<Integer, Set<Long>> numRegistrationsByKey = new HashMap<>();
+        List<Long> results = runConcurrently(calls);
+        for (int i = 0; i < results.size(); i++) {
+            numRegistrationsByKey.computeIfAbsent(i % triples.size(), key -> new HashSet<>()).add(results.get(i));
+        }
+
+        for (int i = 0; i < triples.size(); i++) {
+            assertEquals(1, numRegistrationsByKey.get(i).size(), "Replays must return the original registration");
+            assertFalse(numRegistrationsByKey.get(i).contains(null));
+            assertEquals(1, rows(triples.get(i)));
+        }
+    }
+
+    @Test
+    void testConcurrentKeysForTheSameRegistrationKeepOneRow() throws Exception {
+        long[] triple = freeTriples(50L, 1).get(0);
+        List<Callable<Long>> calls = new ArrayList<>();
+        for (int i = 0; i < THREADS * 2; i++) {
+            String key = "race-" + i;
+            calls.add(() -> register(triple, key));
+        }
+
+        Set<Long> numRegistrations = new HashSet<>(runConcurrently(calls));
+        numRegistrations.remove(null);
+
+        assertEquals(1, rows(triple));
+        assertEquals(1, numRegistrations.size(), "Accepted requests must all designate the single registration");
+    }
+
+    @Test
+    void testKeyReusedForAnotherRegistrationIsUnprocessable() throws Exception {
+        long[] triple = freeTriples(70L, 1).get(0);
+        assertNotNull(register(triple, "reused"));
+
+        MockHttpServletResponse response = mockMvc.perform(put("/registration/addAndAssignToSkierAndCourse/{numSkier}/{numCourse}", triple[0], triple[1])
+                        .header(IdempotencyRegistry.HEADER, "reused")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numWeek\":" + (triple[2] + 1) + "}"))
+                .andReturn().getResponse();
+
+        assertEquals(422, response.getStatus());
+        assertEquals(0, rows(new long[]{triple[0], triple[1], triple[2] + 1}));
+    }
+
+    @Test
+    void testOnlyTheSkierCourseWeekConstraintIsAConflict() {
+        assertNotNull(registrationRestController.registrationConflict(violation("PUBLIC.UK_REGISTRATION_SKIER_COURSE_WEEK_INDEX_B")));
+
+        DataIntegrityViolationException seatTaken = violation("PUBLIC.UK_REGISTRATION_COURSE_WEEK_SEAT_INDEX_B");
+        assertSame(seatTaken, assertThrows(DataIntegrityViolationException.class,
+                () -> registrationRestController.registrationConflict(seatTaken)));
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException("violation"), constraintName));
+    }
+
+    // Numéro d'inscription renvoyé, null si la requête a perdu la course (409)
+    private Long register(long[] triple, String key) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(put("/registration/addAndAssignToSkierAndCourse/{numSkier}/{numCourse}", triple[0], triple[1])
+                        .header(IdempotencyRegistry.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numWeek\":" + triple[2] + "}"))
+                .andReturn().getResponse();
+        if (response.getStatus() == 409) {
+            return null;
+        }
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsString()).get("numRegistration").asLong();
+    }
+
+    private List<Long> runConcurrently(List<Callable<Long>> calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Long> results = new ArrayList<>();
+            for (Future<Long> future : executor.invokeAll(calls, 60, TimeUnit.SECONDS)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // (skieur, cours individuel, semaine) sans inscription, un skieur différent par triplet
+    private List<long[]> freeTriples(long firstSkier, int count) {
+        List<long[]> triples = new ArrayList<>();
+        for (long numSkier = firstSkier; triples.size() < count; numSkier++) {
+            for (int numWeek = 1; ; numWeek++) {
+                long[] triple = {numSkier, 3L, numWeek};
+                if (rows(triple) == 0) {
+                    triples.add(triple);
+                    break;
+                }
+            }
+        }
+        return triples;
+    }
+
+    private int rows(long[] triple) {
+        return jdbcTemplate.queryForObject("select count(*) from registration"
+                + " where skier_num_skier = ? and course_num_course = ? and num_week = ?", Integer.class, triple[0], triple[1], triple[2]);
+    }
+}
@@ -0,0 +1,178 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.dto.RegistrationRequestDTO;
+import tn.esprit.spring.dto.RegistrationResultDTO;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.RegistrationStatus;
+import tn.esprit.spring.services.CourseCapacityTracker;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seats;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegistrationSeatTest {
+
+    // Semaine jamais utilisée par le générateur ; cours 2, 5, 8, 11, 14, 17 collectifs adultes, 3 individuel
+    private static final int WEEK = 53;
+
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private IRegistrationServices registrationServices;
+    @Autowired
+    private CourseCapacityTracker courseCapacityTracker;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    private List<Long> adults;
+
+    @BeforeAll
+    void seed() {
+        generator.generate(100, 19L);
+        adults = jdbcTemplate.queryForList("select num_skier from skier where date_of_birth < ? order by num_skier",
+                Long.class, LocalDate.now().minusYears(17));
+    }
+
+    @Test
+    void testMovedRegistrationTakesASeatInTheNewCourseAndFreesTheOldOne() {
+        Long numRegistration = register(adults.get(0), 2L).getNumRegistration();
+
+        Registration moved = registrationServices.assignRegistrationToCourse(numRegistration, 5L);
+
+        assertEquals(1, moved.getSeat());
+        assertEquals(0, courseCapacityTracker.occupiedSeats(2L, WEEK));
+        assertEquals(1, courseCapacityTracker.occupiedSeats(5L, WEEK));
+
+        assertNull(registrationServices.assignRegistrationToCourse(numRegistration, 3L).getSeat());
+        assertEquals(0, courseCapacityTracker.occupiedSeats(5L, WEEK));
+    }
+
+    @Test
+    void testRegistrationIsNotMovedIntoAFullCourse() {
+        for (int i = 0; i < CourseCapacityTracker.MAX_PARTICIPANTS; i++) {
+            register(adults.get(10 + i), 8L);
+        }
+        Registration registration = register(adults.get(20), 11L);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registrationServices.assignRegistrationToCourse(registration.getNumRegistration(), 8L));
+        assertThrows(IllegalArgumentException.class,
+                () -> registrationServices.assignRegistrationToCourse(-1L, 8L));
+
+        assertEquals(11L, (long) jdbcTemplate.queryForObject("select course_num_course from registration where num_registration = ?",
+                Long.class, registration.getNumRegistration()));
+        assertEquals(CourseCapacityTracker.MAX_PARTICIPANTS, courseCapacityTracker.occupiedSeats(8L, WEEK));
+        assertEquals(1, courseCapacityTracker.occupiedSeats(11L, WEEK));
+    }
+
+    @Test
+    void testBackfillGivesLegacyRegistrationsTheFreeSeats() throws Exception {
+        // Numéros négatifs : jamais alloués par registration_seq
+        long next = -10;
+        jdbcTemplate.update("insert into registration (num_registration, num_week, seat, course_num_course, skier_num_skier) values (?, ?, 1, 14, ?)",
+                next + 1, WEEK, adults.get(30));
+        jdbcTemplate.update("insert into registration (num_registration, num_week, seat, course_num_course, skier_num_skier) values (?, ?, null, 14, ?)",
+                next + 2, WEEK, adults.get(31));
+        jdbcTemplate.update("insert into registration (num_registration, num_week, seat, course_num_course, skier_num_skier) values (?, ?, null, 14, ?)",
+                next + 3, WEEK, adults.get(32));
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/common/V7__registration_seat_backfill.sql"));
+        }
+        courseCapacityTracker.reload();
+
+        assertEquals(3, courseCapacityTracker.occupiedSeats(14L, WEEK));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from registration where seat is null and course_num_course = 14",
+                Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from registration where course_num_course = 14 and num_week = ? and seat in (2, 3)",
+                Integer.class, WEEK));
+    }
+
+    @Test
+    void testBulkReportsInvalidWeeksWithoutRejectingTheBatch() {
+        List<RegistrationResultDTO> results = registrationServices.addRegistrations(Arrays.asList(
+                new RegistrationRequestDTO(adults.get(40), 17L, 0),
+                new RegistrationRequestDTO(adults.get(41), 17L, WEEK),
+                new RegistrationRequestDTO(adults.get(42), 17L, CourseCapacityTracker.MAX_WEEK + 1)));
+
+        assertEquals(RegistrationStatus.INVALID_WEEK, results.get(0).getStatus());
+        assertEquals(RegistrationStatus.ACCEPTED, results.get(1).getStatus());
+        assertNotNull(results.get(1).getNumRegistration());
+        assertEquals(RegistrationStatus.INVALID_WEEK, results.get(2).getStatus());
+        assertEquals(1, courseCapacityTracker.occupiedSeats(17L, WEEK));
+    }
+
+    @Test
+    void testRepeatedRejectedItemKeepsItsReason() {
+        Long child = jdbcTemplate.queryForObject("select min(num_skier) from skier where date_of_birth > ?",
+                Long.class, LocalDate.now().minusYears(10));
+        RegistrationRequestDTO request = new RegistrationRequestDTO(child, 26L, WEEK);
+
+        List<RegistrationResultDTO> results = registrationServices.addRegistrations(Arrays.asList(request, request,
+                new RegistrationRequestDTO(adults.get(43), 26L, WEEK), new RegistrationRequestDTO(adults.get(43), 26L, WEEK)));
+
+        assertEquals(RegistrationStatus.AGE_REJECTED, results.get(0).getStatus());
+        assertEquals(RegistrationStatus.AGE_REJECTED, results.get(1).getStatus());
+        assertEquals(RegistrationStatus.ACCEPTED, results.get(2).getStatus());
+        assertEquals(RegistrationStatus.DUPLICATE, results.get(3).getStatus());
+    }
+
+    @Test
+    void testSingleRegistrationRejectsInvalidWeeks() {
+        Registration registration = new Registration();
+        registration.setNumWeek(CourseCapacityTracker.MAX_WEEK + 1);
+
+        assertNull(registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, adults.get(45), 23L, null));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from registration where skier_num_skier = ? and course_num_course = 23",
+                Integer.class, adults.get(45)));
+
+        Long numRegistration = register(adults.get(46), 3L).getNumRegistration();
+        jdbcTemplate.update("update registration set num_week = 0 where num_registration = ?", numRegistration);
+        assertThrows(IllegalArgumentException.class, () -> registrationServices.assignRegistrationToCourse(numRegistration, 23L));
+    }
+
+    @Test
+    void testSeatTakenByAnotherInstanceIsSkipped() {
+        // Place 1 validée par une autre instance : absente du tracker
+        jdbcTemplate.update("insert into registration (num_registration, num_week, seat, course_num_course, skier_num_skier) values (-20, ?, 1, 20, ?)",
+                WEEK, adults.get(50));
+        assertEquals(0, courseCapacityTracker.occupiedSeats(20L, WEEK));
+
+        Registration registration = new Registration();
+        registration.setNumWeek(WEEK);
+        Registration saved = registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, adults.get(51), 20L, null);
+
+        assertEquals(2, saved.getSeat());
+        assertEquals(2, courseCapacityTracker.occupiedSeats(20L, WEEK));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from registration where course_num_course = 20 and num_week = ?",
+                Integer.class, WEEK));
+    }
+
+    private Registration register(Long numSkier, Long numCourse) {
+        Registration registration = new Registration();
+        registration.setNumWeek(WEEK);
+        return registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, numSkier, numCourse);
+    }
+}
@@ -0,0 +1,130 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tn.esprit.spring.configs.ReplicaLagMonitor;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.services.IPisteServices;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Deux bases H2 : la « réplication » est une copie SCRIPT / RUNSCRIPT de la base principale vers le réplica
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.password=",
+        "spring.datasource.replica.max-lag-ms=60000",
+        "spring.datasource.replica.heartbeat-ms=3600000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ISkierServices skierServices;
+    @Autowired
+    private ISkierRepository skierRepository;
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final JdbcTemplate replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Test
+    void testReadOnlyServicesUseReplicaUntilItLags() throws Exception {
+        generator.generate(50, 1L);
+        replicaLagMonitor.check();
+        replicate();
+        replicaLagMonitor.check();
+        assertTrue(replicaLagMonitor.getRoutingDataSource().isReplicaAvailable());
+
+        // Écrits sur la base principale seulement, pas encore « répliqués »
+        generator.generate(20, 2L);
+        assertEquals(50, skierServices.retrieveAllSkiers().size(), "Read-only service reads the replica");
+        assertEquals(70, skierRepository.count(), "Repository reads outside a service stay on the primary");
+
+        replicaJdbc.update("update replica_heartbeat set beat_at = ?", System.currentTimeMillis() - 120_000);
+        replicaLagMonitor.check();
+        assertFalse(replicaLagMonitor.getRoutingDataSource().isReplicaAvailable());
+        assertTrue(replicaLagMonitor.getLagMillis() >= 120_000);
+        assertEquals(70, skierServices.retrieveAllSkiers().size(), "Lagging replica falls back to the primary");
+    }
+
+    @Test
+    void testUnreachableReplicaFallsBackToPrimary() {
+        replicaJdbc.execute("drop all objects");
+        replicaLagMonitor.check();
+        assertFalse(replicaLagMonitor.getRoutingDataSource().isReplicaAvailable());
+        assertEquals(skierRepository.count(), skierServices.retrieveAllSkiers().size());
+    }
+
+    // Même requête HTTP : la transaction d'écriture ne réutilise pas la connexion du réplica prise par la lecture
+    @Test
+    void testWriteAfterReadOnlyTransactionInTheSameRequestGoesToPrimary() throws Exception {
+        generator.generate(10, 3L);
+        replicate();
+        replicaLagMonitor.check();
+        assertTrue(replicaLagMonitor.getRoutingDataSource().isReplicaAvailable());
+
+        mockMvc.perform(post("/test/readThenWrite")).andReturn();
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from piste where name_piste = 'read-then-write'", Integer.class));
+        assertEquals(0, replicaJdbc.queryForObject("select count(*) from piste where name_piste = 'read-then-write'", Integer.class));
+    }
+
+    @TestConfiguration
+    static class ReadThenWriteConfig {
+
+        @RestController
+        static class ReadThenWriteController {
+
+            @Autowired
+            private ISkierServices skierServices;
+            @Autowired
+            private IPisteServices pisteServices;
+
+            @PostMapping("/test/readThenWrite")
+            public int readThenWrite() {
+                int skiers = skierServices.retrieveAllSkiers().size();
+                pisteServices.addPiste(new Piste(null, "read-then-write", Color.GREEN, 1000, 10, null));
+                return skiers;
+            }
+        }
+    }
+
+    private void replicate() throws Exception {
+        File snapshot = File.createTempFile("replica", ".sql");
+        try {
+            jdbcTemplate.execute("script drop to '" + snapshot.getAbsolutePath() + "'");
+            replicaJdbc.execute("drop all objects");
+            replicaJdbc.execute("runscript from '" + snapshot.getAbsolutePath() + "'");
+        } finally {
+            Files.deleteIfExists(snapshot.toPath());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISubscriptionServices;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:datagen;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "datagen.batch-size=100"})
+class ResortDataGeneratorTest {
+
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private ISubscriptionServices subscriptionServices;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String checksum(long firstSkier) {
+        return jdbcTemplate.queryForObject("select count(*) || ':' || sum(r.num_week * 31 + r.course_num_course % 200) || ':' || sum(l.total_spending)"
+                + " from registration r join spending_ledger l on l.num_skier = r.skier_num_skier"
+                + " where r.skier_num_skier > ? and r.skier_num_skier <= ?", String.class, firstSkier, firstSkier + 1000);
+    }
+
+    @Test
+    void testGenerateIsDeterministicAndKeepsIdsAvailable() {
+        Map<String, Long> first = generator.generate(1000, 7L);
+        assertEquals(1000L, first.get("skier"));
+        assertEquals(1000L, first.get("subscription"));
+        assertEquals(1000L, first.get("spending_ledger"));
+        assertEquals((long) ResortDataGenerator.COURSES, first.get("course"));
+        assertTrue(first.get("registration") > 1000L);
+
+        // Même graine à la suite des données existantes : mêmes lignes, décalées
+        Map<String, Long> second = generator.generate(1000, 7L);
+        assertEquals(first, second);
+        assertEquals(checksum(0), checksum(1000));
+
+        // Les identifiants générés par la base restent libres après le chargement
+        Subscription subscription = subscriptionServices.addSubscription(
+                new Subscription(null, LocalDate.now(), null, 100f, TypeSubscription.MONTHLY));
+        assertEquals(2001L, subscription.getNumSub());
+    }
+}
@@ -0,0 +1,188 @@
+package tn.esprit.spring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Plan d'exécution (EXPLAIN) de chaque requête des repositories sur le schéma créé par les migrations
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schemaindex;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=tn.esprit.spring.SchemaIndexTest$CapturedStatements"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SchemaIndexTest {
+
+    // Parcours complet d'une table ou d'un index sans condition : /* PUBLIC.SKIER.tableScan */, /* PUBLIC.PRIMARY_KEY_4 */
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* (PUBLIC\\.[\\w.]+) \\*/");
+
+    // Requêtes qui lisent toute la table par construction
+    private static final Map<String, String> FULL_SCANS_ALLOWED = new HashMap<>();
+
+    static {
+        FULL_SCANS_ALLOWED.put("findCollectiveSeats/0", "chargement initial de CourseCapacityTracker");
+        FULL_SCANS_ALLOWED.put("countRegistrationsPerSkier/0", "chargement initial de SkierEngagementTracker");
+        FULL_SCANS_ALLOWED.put("findSpendingPerSkier/0", "reconstruction de spending_ledger");
+        FULL_SCANS_ALLOWED.put("countPisteUsageByBirthYear/0", "statistique sur tous les skieurs");
+        FULL_SCANS_ALLOWED.put("aggregateAgesBySubscriptionType/2", "statistique sur tous les skieurs");
+        FULL_SCANS_ALLOWED.put("calculateAverageSubscriptionDuration/0", "statistique sur tous les abonnements");
+        FULL_SCANS_ALLOWED.put("streamAllDtos/0", "export complet en flux");
+        FULL_SCANS_ALLOWED.put("streamAll/0", "export complet en flux");
+    }
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+    @Autowired
+    private ISubscriptionRepository subscriptionRepository;
+    @Autowired
+    private ISkierRepository skierRepository;
+    @Autowired
+    private ICourseRepository courseRepository;
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void seed() {
+        generator.generate(500, 11L);
+        jdbcTemplate.execute("analyze");
+    }
+
+    private Map<String, Runnable> queries() {
+        Course course = courseRepository.findById(1L).orElseThrow(IllegalStateException::new);
+        Subscription subscription = subscriptionRepository.findById(1L).orElseThrow(IllegalStateException::new);
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 3, 1);
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("countByCourseAndNumWeek/2", () -> registrationRepository.countByCourseAndNumWeek(course, 1));
+        queries.put("countRegistrationsPerWeekOfInstructorBySupport/2", () -> registrationRepository.countRegistrationsPerWeekOfInstructorBySupport(1L, Support.SKI));
+        queries.put("countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse/3", () -> registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(1, 1L, 1L));
+        queries.put("countRegistrationsPerSkierForCourse/1", () -> registrationRepository.countRegistrationsPerSkierForCourse(1L));
+        queries.put("findCollectiveSeats/0", () -> registrationRepository.findCollectiveSeats());
+        queries.put("findSeats/2", () -> registrationRepository.findSeats(1L, 1));
+        queries.put("findExistingRegistrations/2", () -> registrationRepository.findExistingRegistrations(ids, ids));
+        queries.put("findBySkier_NumSkierAndCourse_NumCourseAndNumWeek/3", () -> registrationRepository.findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(1L, 1L, 1));
+
+        queries.put("findByTypeSubOrderByStartDateAsc/1", () -> subscriptionRepository.findByTypeSubOrderByStartDateAsc(TypeSubscription.MONTHLY));
+        queries.put("getSubscriptionsByStartDateBetween/2", () -> subscriptionRepository.getSubscriptionsByStartDateBetween(from, to));
+        queries.put("findDistinctOrderByEndDateAsc/0", () -> subscriptionRepository.findDistinctOrderByEndDateAsc());
+        queries.put("recurringRevenueByTypeSubEquals/1", () -> subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL));
+        queries.put("getSubscriptionsByEndDateBetween/2", () -> subscriptionRepository.getSubscriptionsByEndDateBetween(from, to));
+        queries.put("getSubscriptionsByEndDateBetween/5", () -> subscriptionRepository.getSubscriptionsByEndDateBetween(from, to, from, 0L, PageRequest.of(0, 20)));
+        queries.put("calculateRevenueBetween/2", () -> subscriptionRepository.calculateRevenueBetween(from, to));
+        queries.put("calculateRevenueByTypeBetween/2", () -> subscriptionRepository.calculateRevenueByTypeBetween(from, to));
+        queries.put("calculateRevenueByMonthBetween/2", () -> subscriptionRepository.calculateRevenueByMonthBetween(from, to));
+        queries.put("calculateAverageSubscriptionDuration/0", () -> subscriptionRepository.calculateAverageSubscriptionDuration());
+        queries.put("findByNumSubGreaterThanOrderByNumSubAsc/2", () -> subscriptionRepository.findByNumSubGreaterThanOrderByNumSubAsc(100L, PageRequest.of(0, 20)));
+        queries.put("streamAll/0", () -> subscriptionRepository.streamAll().limit(10).count());
+
+        queries.put("findBySubscription_TypeSub/1", () -> skierRepository.findBySubscription_TypeSub(TypeSubscription.SEMESTRIEL));
+        queries.put("findBySubscription/1", () -> skierRepository.findBySubscription(subscription));
+        queries.put("findBySubscription_EndDateAfter/1", () -> skierRepository.findBySubscription_EndDateAfter(LocalDate.now().plusYears(5)));
+        queries.put("skiersByColorPiste/1", () -> skierRepository.skiersByColorPiste(Color.BLACK));
+        queries.put("getSkierByNumSkier/1", () -> skierRepository.getSkierByNumSkier(1L));
+        queries.put("findWithRegistrationsByNumSkier/1", () -> skierRepository.findWithRegistrationsByNumSkier(1L));
+        queries.put("countRegistrationsPerSkier/0", () -> skierRepository.countRegistrationsPerSkier());
+        queries.put("findEngagementDtos/1", () -> skierRepository.findEngagementDtos(ids));
+        queries.put("findWithPistesByNumSkier/1", () -> skierRepository.findWithPistesByNumSkier(1L));
+        queries.put("findSpendingPerSkier/0", () -> skierRepository.findSpendingPerSkier());
+        queries.put("findSpendingOfSkier/1", () -> skierRepository.findSpendingOfSkier(1L));
+        queries.put("countPisteUsageByBirthYear/0", () -> skierRepository.countPisteUsageByBirthYear());
+        queries.put("aggregateAgesBySubscriptionType/2", () -> skierRepository.aggregateAgesBySubscriptionType(6, 15));
+        queries.put("findDtoByNumSkier/1", () -> skierRepository.findDtoByNumSkier(1L));
+        queries.put("findDtoBySubscriptionType/1", () -> skierRepository.findDtoBySubscriptionType(TypeSubscription.ANNUAL));
+        queries.put("findDtoPageAfter/2", () -> skierRepository.findDtoPageAfter(100L, PageRequest.of(0, 20)));
+        queries.put("streamAllDtos/0", () -> skierRepository.streamAllDtos().limit(10).count());
+        return queries;
+    }
+
+    @Test
+    void testEveryRepositoryQueryIsChecked() {
+        Map<String, Runnable> queries = queries();
+        for (Class<?> repository : Arrays.asList(IRegistrationRepository.class, ISubscriptionRepository.class, ISkierRepository.class)) {
+            for (Method method : repository.getDeclaredMethods()) {
+                String key = method.getName() + "/" + method.getParameterCount();
+                assertTrue(queries.containsKey(key), repository.getSimpleName() + "." + key + " has no EXPLAIN check");
+            }
+        }
+    }
+
+    @Test
+    void testRepositoryQueriesUseIndexes() {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : queries().entrySet()) {
+            List<String> statements = capture(query.getValue());
+            assertFalse(statements.isEmpty(), query.getKey() + " ran no SQL");
+            for (String sql : statements) {
+                String plan = explain(sql);
+                Matcher scan = FULL_SCAN.matcher(plan);
+                if (scan.find() && !FULL_SCANS_ALLOWED.containsKey(query.getKey())) {
+                    failures.add(query.getKey() + " scans " + scan.group(1) + " :\n" + plan);
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    private List<String> capture(Runnable query) {
+        // Contexte de persistance neuf à chaque appel : les requêtes de chargement sont toutes exécutées
+        return transactionTemplate.execute(status -> {
+            CapturedStatements.STATEMENTS.clear();
+            query.run();
+            return new ArrayList<>(CapturedStatements.STATEMENTS);
+        });
+    }
+
+    private String explain(String sql) {
+        Object[] parameters = new Object[sql.length() - sql.replace("?", "").length()];
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, parameters));
+    }
+
+    public static class CapturedStatements implements StatementInspector {
+
+        static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.trim().toLowerCase().startsWith("select")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.SkierRegistrationCount;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.services.SkierEngagementTracker;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class SkierEngagementTrackerTest {
+
+    @Mock
+    private ISkierRepository skierRepository;
+
+    private SkierEngagementTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(skierRepository.count()).thenReturn(4L);
+        when(skierRepository.countRegistrationsPerSkier()).thenReturn(Arrays.asList(
+                count(1L, 2L), count(2L, 3L), count(3L, 1L)));
+        tracker = new SkierEngagementTracker(skierRepository);
+        tracker.warmUp();
+    }
+
+    @Test
+    void testWarmUpLoadsTotals() {
+        assertEquals(4, tracker.skiers());
+        assertEquals(6, tracker.registrations());
+        assertEquals(1.5, tracker.averageRegistrationsPerSkier());
+        assertEquals(2L, tracker.mostActiveSkier());
+    }
+
+    @Test
+    void testRegistrationsReorderRanking() {
+        tracker.registrationAdded(1L);
+        tracker.registrationAdded(1L);
+        tracker.registrationRemoved(2L);
+
+        assertEquals(7, tracker.registrations());
+        assertEquals(1L, tracker.mostActiveSkier());
+        assertEquals(Arrays.asList(1L, 2L, 3L), new ArrayList<>(tracker.topSkiers(5).keySet()));
+        assertEquals(Integer.valueOf(4), tracker.topSkiers(1).get(1L));
+    }
+
+    @Test
+    void testTiesRankByLowestNumSkier() {
+        tracker.registrationAdded(1L);
+
+        assertEquals(1L, tracker.mostActiveSkier());
+        assertEquals(Arrays.asList(1L, 2L), new ArrayList<>(tracker.topSkiers(2).keySet()));
+    }
+
+    @Test
+    void testRemovedSkierLeavesRanking() {
+        tracker.skierRemoved(2L);
+
+        assertEquals(3, tracker.skiers());
+        assertEquals(3, tracker.registrations());
+        assertEquals(1L, tracker.mostActiveSkier());
+        assertFalse(tracker.topSkiers(10).containsKey(2L));
+    }
+
+    @Test
+    void testNewSkierLowersAverage() {
+        tracker.skierAdded(5L);
+
+        assertEquals(5, tracker.skiers());
+        assertEquals(1.2, tracker.averageRegistrationsPerSkier(), 1e-9);
+        assertEquals(3, tracker.topSkiers(10).size());
+    }
+
+    @Test
+    void testRegistrationDuringReloadIsNotLost() {
+        // Inscription validée pendant la lecture : la première lecture ne la voit pas, la suivante si
+        when(skierRepository.countRegistrationsPerSkier())
+                .thenAnswer(invocation -> {
+                    tracker.registrationAdded(3L);
+                    return Arrays.asList(count(1L, 2L), count(2L, 3L), count(3L, 1L));
+                })
+                .thenReturn(Arrays.asList(count(1L, 2L), count(2L, 3L), count(3L, 2L)));
+
+        tracker.reload();
+
+        assertEquals(7, tracker.registrations());
+        assertEquals(Integer.valueOf(2), tracker.topSkiers(10).get(3L));
+    }
+
+    private static SkierRegistrationCount count(Long numSkier, Long registrations) {
+        return new SkierRegistrationCount() {
+            @Override
+            public Long getNumSkier() {
+                return numSkier;
+            }
+
+            @Override
+            public Long getRegistrations() {
+                return registrations;
+            }
+        };
+    }
+}
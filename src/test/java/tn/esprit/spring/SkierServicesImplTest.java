@@ -5,10 +5,21 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import tn.esprit.spring.dto.BirthYearPisteUsage;
+import tn.esprit.spring.dto.SkierDTO;
+import tn.esprit.spring.dto.SkierEngagementDTO;
+import tn.esprit.spring.dto.SkierSpending;
+import tn.esprit.spring.dto.SubscriptionAgeAggregate;
+import tn.esprit.spring.dto.SubscriptionAgeDTO;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
+import tn.esprit.spring.services.AnalyticsCache;
+import tn.esprit.spring.services.ISpendingLedgerServices;
+import tn.esprit.spring.services.SkierEngagementTracker;
 import tn.esprit.spring.services.SkierServicesImpl;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
 import org.slf4j.Logger;
@@ -43,6 +54,15 @@ class SkierServicesImplTest {
     @Mock
     private ISubscriptionRepository subscriptionRepository;
 
+    @Mock
+    private ISpendingLedgerServices spendingLedgerServices;
+
+    @Mock
+    private SkierEngagementTracker engagementTracker;
+
+    @Spy
+    private AnalyticsCache analyticsCache = new AnalyticsCache(true, 5000);
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -58,27 +78,36 @@ class SkierServicesImplTest {
         return new Piste(id, name, color, length, slope, new HashSet<>());
     }
 
+    private BirthYearPisteUsage usage(int birthYear, long skiers, long excursions) {
+        BirthYearPisteUsage usage = mock(BirthYearPisteUsage.class);
+        when(usage.getBirthYear()).thenReturn(birthYear);
+        when(usage.getSkiers()).thenReturn(skiers);
+        when(usage.getExcursions()).thenReturn(excursions);
+        return usage;
+    }
+
     @Test
     void testAnalyzePisteUsageByAgeGroup() {
-        LocalDate currentDate = LocalDate.now();
-
-        Skier skierChild = createSkier(1L, "John", "Doe", currentDate.minusYears(10), CITY_A);
-        Skier skierTeen = createSkier(2L, "Jane", "Doe", currentDate.minusYears(15), CITY_B);
-        Skier skierAdult = createSkier(3L, "Mike", "Smith", currentDate.minusYears(30), CITY_C);
-        Skier skierSenior = createSkier(4L, "Anna", "Jones", currentDate.minusYears(65), CITY_D);
-
-        skierChild.getPistes().add(createPiste(1L, "PisteA", Color.GREEN, 1200, 30));
-        skierTeen.getPistes().add(createPiste(2L, "PisteB", Color.BLUE, 800, 20));
-        skierAdult.getPistes().add(createPiste(3L, "PisteC", Color.RED, 1500, 25));
-        skierSenior.getPistes().add(createPiste(4L, "PisteD", Color.BLACK, 2000, 40));
+        int currentYear = LocalDate.now().getYear();
 
-        when(skierRepository.findAll()).thenReturn(Arrays.asList(skierChild, skierTeen, skierAdult, skierSenior));
+        List<BirthYearPisteUsage> usages = Arrays.asList(
+                usage(currentYear - 10, 1, 1),
+                usage(currentYear - 15, 2, 1),
+                usage(currentYear - 30, 1, 3),
+                usage(currentYear - 45, 1, 1),
+                usage(currentYear - 65, 1, 1));
+        when(skierRepository.countPisteUsageByBirthYear()).thenReturn(usages);
 
         Map<String, Double> result = skierServices.analyzePisteUsageByAgeGroup();
+        skierServices.analyzePisteUsageByAgeGroup();
 
         assertEquals(4, result.size(), ASSERTION_MESSAGE_RESULT_SIZE + "4");
         assertTrue(result.containsKey("Children (0-12)"), "Group 'Children (0-12)' should be present");
         assertEquals(1.0, result.get("Children (0-12)"), "Piste usage for 'Children (0-12)' should be 1.0");
+        assertEquals(0.5, result.get("Teens (13-19)"), "Piste usage for 'Teens (13-19)' should be 0.5");
+        assertEquals(2.0, result.get("Adults (20-59)"), "Piste usage for 'Adults (20-59)' should be 2.0");
+        verify(skierRepository, times(1)).countPisteUsageByBirthYear();
+        verify(skierRepository, never()).findAll();
         logger.info("testAnalyzePisteUsageByAgeGroup: " + LOG_TEST_SUCCESS);
     }
 
@@ -87,31 +116,108 @@ class SkierServicesImplTest {
         Skier skier1 = createSkier(1L, "John", "Doe", LocalDate.now().minusYears(25), CITY_A);
         Skier skier2 = createSkier(2L, "Jane", "Doe", LocalDate.now().minusYears(30), CITY_B);
 
-        skier1.getRegistrations().add(new Registration(1L, 10, skier1, new Course()));
-        skier1.getRegistrations().add(new Registration(2L, 12, skier1, new Course()));
-        skier2.getRegistrations().add(new Registration(3L, 15, skier2, new Course()));
+        skier1.getRegistrations().add(new Registration(1L, 10, null, skier1, new Course()));
+        skier1.getRegistrations().add(new Registration(2L, 12, null, skier1, new Course()));
+        skier2.getRegistrations().add(new Registration(3L, 15, null, skier2, new Course()));
 
-        when(skierRepository.findAll()).thenReturn(Arrays.asList(skier1, skier2));
+        when(engagementTracker.averageRegistrationsPerSkier()).thenReturn(1.5);
+        when(engagementTracker.mostActiveSkier()).thenReturn(1L);
+        when(skierRepository.findWithRegistrationsByNumSkier(1L)).thenReturn(Optional.of(skier1));
 
         Map<String, Object> result = skierServices.analyzeSkierEngagement();
 
         assertEquals(2, result.size(), ASSERTION_MESSAGE_RESULT_SIZE + "2");
         assertEquals(1.5, result.get("averageCoursesPerSkier"), "Average courses per skier should be 1.5");
         assertEquals(skier1, result.get("mostActiveSkier"), "The most active skier should be skier1");
+        verify(skierRepository, never()).findAll();
         logger.info("testAnalyzeSkierEngagement: " + LOG_TEST_SUCCESS);
     }
 
+    @Test
+    void testRetrieveMostActiveSkiers() {
+        LinkedHashMap<Long, Integer> top = new LinkedHashMap<>();
+        top.put(2L, 5);
+        top.put(1L, 3);
+        when(engagementTracker.topSkiers(2)).thenReturn(top);
+        when(skierRepository.findEngagementDtos(top.keySet())).thenReturn(Arrays.asList(
+                new SkierEngagementDTO(1L, "John", "Doe", 0),
+                new SkierEngagementDTO(2L, "Jane", "Doe", 0)));
+
+        List<SkierEngagementDTO> result = skierServices.retrieveMostActiveSkiers(2);
+
+        assertEquals(2, result.size(), ASSERTION_MESSAGE_RESULT_SIZE + "2");
+        assertEquals(2L, result.get(0).getNumSkier(), "The most active skier should come first");
+        assertEquals(5, result.get(0).getRegistrations());
+        assertEquals(3, result.get(1).getRegistrations());
+        logger.info("testRetrieveMostActiveSkiers: " + LOG_TEST_SUCCESS);
+    }
+
     @Test
     void testCalculateTotalSpendingBySkier() {
         Long skierId = 1L;
-        Skier skier = createSkier(skierId, "John", "Doe", LocalDate.now().minusYears(28), CITY_A);
-        skier.setSubscription(new Subscription(1L, LocalDate.now().minusMonths(6), LocalDate.now().plusMonths(6), 120f, TypeSubscription.ANNUAL));
-
-        when(skierRepository.findById(skierId)).thenReturn(Optional.of(skier));
+        when(spendingLedgerServices.getTotalSpending(skierId)).thenReturn(120f);
 
         Float totalSpending = skierServices.calculateTotalSpendingBySkier(skierId);
 
         assertEquals(120f, totalSpending, ASSERTION_MESSAGE_TOTAL_SPENDING + "120");
+        verify(skierRepository, never()).findById(skierId);
         logger.info("testCalculateTotalSpendingBySkier: " + LOG_TEST_SUCCESS);
     }
+
+    private SkierSpending spending(Long id, Float subscriptionPrice, Double courseSpending) {
+        SkierSpending spending = mock(SkierSpending.class);
+        when(spending.getNumSkier()).thenReturn(id);
+        when(spending.getSubscriptionPrice()).thenReturn(subscriptionPrice);
+        when(spending.getCourseSpending()).thenReturn(courseSpending);
+        when(spending.getTotalSpending()).thenReturn(BigDecimal.valueOf(courseSpending + (subscriptionPrice != null ? subscriptionPrice : 0f)));
+        return spending;
+    }
+
+    @Test
+    void testFindTopSpendingSkiers() {
+        List<SkierSpending> firstRows = Arrays.asList(spending(2L, null, 300.0), spending(3L, 50f, 100.0));
+        List<SkierSpending> secondRows = Arrays.asList(spending(1L, 100f, 0.0), spending(4L, 20f, 0.0));
+        when(spendingLedgerServices.getRanking(0, 2)).thenReturn(firstRows);
+        when(spendingLedgerServices.getRanking(1, 2)).thenReturn(secondRows);
+
+        List<SkierDTO> firstPage = skierServices.findTopSpendingSkiers(3, 0, 2);
+        List<SkierDTO> secondPage = skierServices.findTopSpendingSkiers(3, 1, 2);
+
+        assertEquals(2, firstPage.size(), ASSERTION_MESSAGE_RESULT_SIZE + "2");
+        assertEquals(2L, firstPage.get(0).getNumSkier(), "The top spender should be skier 2");
+        assertEquals(150f, firstPage.get(1).getTotalSpending(), ASSERTION_MESSAGE_TOTAL_SPENDING + "150");
+        assertEquals(1, secondPage.size(), ASSERTION_MESSAGE_RESULT_SIZE + "1");
+        assertEquals(1L, secondPage.get(0).getNumSkier(), "The third spender should be skier 1");
+        verify(skierRepository, never()).findById(anyLong());
+        logger.info("testFindTopSpendingSkiers: " + LOG_TEST_SUCCESS);
+    }
+
+    @Test
+    void testGetAgeReportBySubscriptionType() {
+        SubscriptionAgeAggregate annual = mock(SubscriptionAgeAggregate.class);
+        when(annual.getTypeSubscription()).thenReturn(TypeSubscription.ANNUAL);
+        when(annual.getSkiers()).thenReturn(2L);
+        when(annual.getOldestBirthDate()).thenReturn(LocalDate.of(2000, 3, 1));
+        when(annual.getYoungestBirthDate()).thenReturn(LocalDate.of(2010, 12, 1));
+        when(annual.getAverageBirthYear()).thenReturn(2005.0);
+        when(annual.getBirthdaysPending()).thenReturn(1L);
+        List<SubscriptionAgeAggregate> aggregates = Collections.singletonList(annual);
+        when(skierRepository.aggregateAgesBySubscriptionType(anyInt(), anyInt())).thenReturn(aggregates);
+
+        Map<TypeSubscription, SubscriptionAgeDTO> report = skierServices.getAgeReportBySubscriptionType(LocalDate.of(2024, 6, 15));
+        Map<TypeSubscription, Double> averageAges = skierServices.getAverageAgeBySubscriptionType();
+
+        SubscriptionAgeDTO ages = report.get(TypeSubscription.ANNUAL);
+        assertEquals(1, report.size(), ASSERTION_MESSAGE_RESULT_SIZE + "1");
+        assertEquals(2L, ages.getSkiers(), "Two annual skiers expected");
+        assertEquals(19.0, ages.getAverageAge(), "Calendar-year average age should be 19");
+        assertEquals(18.5, ages.getAveragePreciseAge(), "One birthday still pending: precise average should be 18.5");
+        assertEquals(13, ages.getMinAge(), "Youngest skier should be 13");
+        assertEquals(24, ages.getMaxAge(), "Oldest skier should be 24");
+        assertEquals(TypeSubscription.values().length, averageAges.size(), "Every subscription type should be reported");
+        assertEquals(0.0, averageAges.get(TypeSubscription.MONTHLY), "No monthly skier: average age should be 0");
+        verify(skierRepository, times(2)).aggregateAgesBySubscriptionType(anyInt(), anyInt());
+        verify(skierRepository, never()).findBySubscription_TypeSub(any());
+        logger.info("testGetAgeReportBySubscriptionType: " + LOG_TEST_SUCCESS);
+    }
 }
@@ -0,0 +1,105 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.ISpendingLedgerServices;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SpendingLedgerTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private ISpendingLedgerServices spendingLedgerServices;
+    @Autowired
+    private IRegistrationServices registrationServices;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        generator.generate(50, 17L);
+    }
+
+    @Test
+    void testIncrementsDoNotDrift() {
+        BigDecimal before = total(1L);
+        for (int i = 0; i < 2000; i++) {
+            spendingLedgerServices.recordCourseSpending(1L, 0.1f);
+            spendingLedgerServices.recordCourseSpending(1L, -0.1f);
+        }
+
+        assertEquals(0, before.compareTo(total(1L)));
+        assertEquals(0, (int) spendingLedgerServices.reconcile().get("corrected"));
+    }
+
+    // Cours individuels 3, 6, 9... en semaine 53, jamais utilisée par le générateur
+    @Test
+    void testConcurrentFirstWritesKeepEveryIncrement() throws Exception {
+        BigDecimal expected = total(2L).add(jdbcTemplate.queryForObject(
+                "select sum(price) from course where num_course in (3, 6, 9, 12, 15, 18, 21, 24)", BigDecimal.class));
+        jdbcTemplate.update("delete from spending_ledger where num_skier = 2");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 1; i <= THREADS; i++) {
+                long numCourse = 3L * i;
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    Registration registration = new Registration();
+                    registration.setNumWeek(53);
+                    assertNotNull(registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, 2L, numCourse));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, expected.compareTo(total(2L)), "expected " + expected + " but was " + total(2L));
+        assertEquals(0, (int) spendingLedgerServices.reconcile().get("corrected"));
+    }
+
+    @Test
+    void testReconcileRecomputesDriftedAndMissingRows() {
+        BigDecimal expected = total(3L);
+        jdbcTemplate.update("update spending_ledger set course_spending = course_spending + 42, total_spending = total_spending + 42 where num_skier = 3");
+        jdbcTemplate.update("delete from spending_ledger where num_skier = 4");
+
+        spendingLedgerServices.reconcile();
+
+        assertEquals(0, expected.compareTo(total(3L)));
+        assertNotNull(total(4L));
+    }
+
+    private BigDecimal total(Long numSkier) {
+        return jdbcTemplate.queryForObject("select total_spending from spending_ledger where num_skier = ?", BigDecimal.class, numSkier);
+    }
+}
@@ -0,0 +1,94 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.configs.SqlStatementCounter;
+import tn.esprit.spring.configs.SqlStatementsAdvice;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Garde-fou N+1 : nombre de requêtes SQL par appel, sur un jeu de données généré
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sqlbudget;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "sql.statements.budget=20",
+        "sql.statements.strict=true"})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SqlStatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ISkierServices skierServices;
+    @Autowired
+    private ResortDataGenerator generator;
+
+    @BeforeAll
+    void seed() {
+        generator.generate(200, 3L);
+    }
+
+    @Test
+    void testSkiersBySubscriptionRunsOneQuery() throws Exception {
+        mockMvc.perform(get("/skier/getSkiersBySubscription").param("typeSubscription", "ANNUAL"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementsAdvice.STATEMENTS_HEADER, "1"));
+    }
+
+    @Test
+    void testPisteUsageByAgeGroupRunsOneQuery() {
+        SqlStatementCounter.start();
+        try {
+            skierServices.analyzePisteUsageByAgeGroup(LocalDate.of(2024, 1, 1));
+            assertEquals(1, SqlStatementCounter.statements());
+        } finally {
+            SqlStatementCounter.stop();
+        }
+    }
+
+    @Test
+    void testSkierEngagementLoadsOnlyMostActiveSkier() throws Exception {
+        mockMvc.perform(get("/skier/analyzeSkierEngagement"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementsAdvice.STATEMENTS_HEADER, "1"));
+    }
+
+    @Test
+    void testAvailabilitySearchRunsNoQuery() throws Exception {
+        mockMvc.perform(get("/course/availability").param("typeCourse", "COLLECTIVE_ADULT").param("fromWeek", "10").param("toWeek", "20"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementsAdvice.STATEMENTS_HEADER, "0"));
+    }
+
+    @Test
+    void testInstructorScheduleRunsOneQueryThenComesFromCache() throws Exception {
+        mockMvc.perform(get("/instructor/schedule/1/SKI"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementsAdvice.STATEMENTS_HEADER, "1"));
+        mockMvc.perform(get("/registration/numWeeks/1/SKI"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementsAdvice.STATEMENTS_HEADER, "0"));
+    }
+
+    @Test
+    void testMostActiveSkiersLoadsNamesInOneQuery() throws Exception {
+        mockMvc.perform(get("/skier/mostActiveSkiers").param("k", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementsAdvice.STATEMENTS_HEADER, "1"));
+    }
+}
@@ -5,19 +5,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.SubscriptionRevenueDTO;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.repositories.ISkierRepository;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
+import tn.esprit.spring.services.AnalyticsCache;
 import tn.esprit.spring.services.SubscriptionServicesImpl;
 
 
 
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -29,6 +35,9 @@ import static org.mockito.Mockito.when;
     @Mock
     private ISkierRepository skierRepository; // Ajout de la simulation pour skierRepository
 
+    @Mock
+    private AnalyticsCache analyticsCache;
+
     @InjectMocks
     private SubscriptionServicesImpl subscriptionService;
 
@@ -131,15 +140,13 @@ import static org.mockito.Mockito.when;
     @Test
      void testCalculateTotalRevenue() {
         System.out.println("Running testCalculateTotalRevenue...");
-        List<Subscription> subscriptions = Arrays.asList(
-                new Subscription(1L, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1), 100f, TypeSubscription.ANNUAL),
-                new Subscription(2L, LocalDate.of(2023, 2, 1), LocalDate.of(2024, 2, 1), 200f, TypeSubscription.ANNUAL)
-        );
-        when(subscriptionRepository.getSubscriptionsByStartDateBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)))
-                .thenReturn(subscriptions);
+        SubscriptionRevenueDTO revenue = new SubscriptionRevenueDTO(2L, new BigDecimal("300.00"), 730L);
+        when(subscriptionRepository.calculateRevenueBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)))
+                .thenReturn(revenue);
 
         Float totalRevenue = subscriptionService.calculateTotalRevenue(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
         assertEquals(300f, totalRevenue);
+        verify(subscriptionRepository, never()).getSubscriptionsByStartDateBetween(any(), any());
 
         System.out.println("testCalculateTotalRevenue passed! Total revenue: " + totalRevenue);
     }
@@ -150,7 +157,7 @@ import static org.mockito.Mockito.when;
         List<Subscription> subscriptions = Arrays.asList(
                 new Subscription(1L, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), 100f, TypeSubscription.ANNUAL)
         );
-        when(subscriptionRepository.getSubscriptionsByStartDateBetween(LocalDate.now(), LocalDate.now().plusDays(7)))
+        when(subscriptionRepository.getSubscriptionsByEndDateBetween(LocalDate.now(), LocalDate.now().plusDays(7)))
                 .thenReturn(subscriptions);
 
         List<Subscription> result = subscriptionService.findSubscriptionsExpiringSoon();
@@ -162,15 +169,12 @@ import static org.mockito.Mockito.when;
     @Test
      void testCalculateAverageSubscriptionDuration() {
         System.out.println("Running testCalculateAverageSubscriptionDuration...");
-        List<Subscription> subscriptions = Arrays.asList(
-                new Subscription(1L, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1), 100f, TypeSubscription.ANNUAL),
-                new Subscription(2L, LocalDate.of(2023, 2, 1), LocalDate.of(2024, 2, 1), 200f, TypeSubscription.ANNUAL)
-        );
-        when(subscriptionRepository.findAll()).thenReturn(subscriptions);
+        when(subscriptionRepository.calculateAverageSubscriptionDuration()).thenReturn(365.0);
 
         Float averageDuration = subscriptionService.calculateAverageSubscriptionDuration();
         assertEquals(365f, averageDuration);
+        verify(subscriptionRepository, never()).findAll();
 
         System.out.println("testCalculateAverageSubscriptionDuration passed! Average subscription duration: " + averageDuration + " days");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tn.esprit.spring.datagen.ResortDataGenerator;
+import tn.esprit.spring.dto.WaitlistPromotionDTO;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.CourseCapacityTracker;
+import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.IWaitlistServices;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:waitlist;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class WaitlistTest {
+
+    // Cours collectifs adultes ; semaine 53 jamais utilisée par le générateur
+    private static final Long COURSE = 2L;
+    private static final Long OTHER_COURSE = 5L;
+    private static final int WEEK = 53;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ResortDataGenerator generator;
+    @Autowired
+    private IRegistrationServices registrationServices;
+    @Autowired
+    private IWaitlistServices waitlistServices;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> adults;
+    private final List<Long> registrations = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        generator.generate(100, 13L);
+        adults = jdbcTemplate.queryForList("select num_skier from skier where date_of_birth < ? order by num_skier",
+                Long.class, LocalDate.now().minusYears(17));
+        assertThrows(IllegalArgumentException.class, () -> waitlistServices.joinWaitlist(adults.get(6), COURSE, WEEK),
+                "A course with free seats has no waitlist");
+        for (int i = 0; i < CourseCapacityTracker.MAX_PARTICIPANTS; i++) {
+            Registration registration = new Registration();
+            registration.setNumWeek(WEEK);
+            registrations.add(registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, adults.get(i), COURSE).getNumRegistration());
+        }
+    }
+
+    @Test
+    void testHeadOfWaitlistIsRegisteredAndNotifiedWhenASeatIsReleased() throws Exception {
+        assertEquals(1, waitlistServices.joinWaitlist(adults.get(6), COURSE, WEEK));
+        assertEquals(2, waitlistServices.joinWaitlist(adults.get(7), COURSE, WEEK));
+        assertEquals(3, waitlistServices.joinWaitlist(adults.get(8), COURSE, WEEK));
+        assertEquals(1, waitlistServices.joinWaitlist(adults.get(6), COURSE, WEEK), "Joining again keeps the position");
+        assertEquals(3, waitlisted());
+
+        MvcResult subscription = mockMvc.perform(get("/waitlist/subscribe/{numSkier}", adults.get(6)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(delete("/registration/delete/{numRegistration}", registrations.get(0)))
+                .andExpect(status().isOk());
+
+        assertEquals(1, registered(adults.get(6)));
+        assertEquals(0, waitlistServices.waitlistPosition(adults.get(6), COURSE, WEEK));
+        assertEquals(1, waitlistServices.waitlistPosition(adults.get(7), COURSE, WEEK));
+        assertEquals(2, waitlisted());
+        String events = subscription.getResponse().getContentAsString();
+        assertTrue(events.contains("event:promoted"), events);
+        assertTrue(events.contains("\"numCourse\":" + COURSE), events);
+
+        // Deux places libérées en même temps : deux promotions distinctes, file vidée
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> removals = new ArrayList<>();
+            for (int i = 1; i <= 2; i++) {
+                Long numRegistration = registrations.get(i);
+                removals.add(executor.submit(() -> {
+                    registrationServices.removeRegistration(numRegistration);
+                    return null;
+                }));
+            }
+            for (Future<?> removal : removals) {
+                removal.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, registered(adults.get(7)));
+        assertEquals(1, registered(adults.get(8)));
+        assertEquals(0, waitlisted());
+        assertEquals(CourseCapacityTracker.MAX_PARTICIPANTS, (int) jdbcTemplate.queryForObject(
+                "select count(*) from registration where course_num_course = ? and num_week = ?", Integer.class, COURSE, WEEK));
+    }
+
+    @Test
+    void testConcurrentJoinsKeepOneEntryAndThePromotionIsKept() throws Exception {
+        for (int i = 10; i < 10 + CourseCapacityTracker.MAX_PARTICIPANTS; i++) {
+            Registration registration = new Registration();
+            registration.setNumWeek(WEEK);
+            registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, adults.get(i), OTHER_COURSE);
+        }
+        Long waiting = adults.get(20);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> joins = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                joins.add(executor.submit(() -> {
+                    start.await();
+                    return waitlistServices.joinWaitlist(waiting, OTHER_COURSE, WEEK);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> join : joins) {
+                assertEquals(1, join.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, waitlisted(OTHER_COURSE));
+
+        registrationServices.removeRegistration(jdbcTemplate.queryForObject("select num_registration from registration"
+                + " where skier_num_skier = ? and course_num_course = ? and num_week = ?", Long.class, adults.get(10), OTHER_COURSE, WEEK));
+
+        assertEquals(0, waitlisted(OTHER_COURSE));
+        List<WaitlistPromotionDTO> promotions = waitlistServices.retrievePromotions(waiting);
+        assertEquals(1, promotions.size());
+        assertEquals(OTHER_COURSE, promotions.get(0).getNumCourse());
+
+        // Abonnement après coup : la promotion est renvoyée
+        MvcResult subscription = mockMvc.perform(get("/waitlist/subscribe/{numSkier}", waiting))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String events = subscription.getResponse().getContentAsString();
+        assertTrue(events.contains("\"numRegistration\":" + promotions.get(0).getNumRegistration()), events);
+    }
+
+    private int registered(Long numSkier) {
+        return jdbcTemplate.queryForObject("select count(*) from registration"
+                + " where skier_num_skier = ? and course_num_course = ? and num_week = ?", Integer.class, numSkier, COURSE, WEEK);
+    }
+
+    private int waitlisted() {
+        return waitlisted(COURSE);
+    }
+
+    // Skieurs encore en attente : les entrées promues gardent leur inscription
+    private int waitlisted(Long numCourse) {
+        return jdbcTemplate.queryForObject("select count(*) from waitlist_entry"
+                + " where course_num_course = ? and num_week = ? and registration_num_registration is null", Integer.class, numCourse, WEEK);
+    }
+}